@@ -0,0 +1,104 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Core TablutBoardState operations on an opening and a mid-game position.
+ *
+ * processMove mutates the state, so that benchmark clones first; compare with
+ * the clone benchmark to get the cost of the move itself, or look at
+ * applyUndoMove for the make/unmake path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardStateBenchmark {
+    @Param({ Positions.OPENING, Positions.MIDGAME })
+    public String position;
+
+    private TablutBoardState state;
+    private MoveBuffer buffer;
+    private TablutMove[] legalMoves;
+    private int[] packedMoves;
+    private TablutMove[] candidateMoves; // a mix of legal and illegal moves
+    private int next;
+
+    @Setup
+    public void setup() {
+        state = Positions.get(position);
+        buffer = new MoveBuffer();
+        List<TablutMove> moves = state.getAllLegalMoves();
+        legalMoves = moves.toArray(new TablutMove[0]);
+        packedMoves = new int[legalMoves.length];
+        for (int i = 0; i < legalMoves.length; i++) {
+            packedMoves[i] = legalMoves[i].toPacked();
+        }
+
+        Random rand = new Random(1648);
+        List<TablutMove> candidates = new ArrayList<>(moves);
+        int size = TablutBoardState.BOARD_SIZE;
+        while (candidates.size() < 2 * moves.size()) {
+            candidates.add(new TablutMove(rand.nextInt(size), rand.nextInt(size), rand.nextInt(size),
+                    rand.nextInt(size), state.getTurnPlayer()));
+        }
+        candidateMoves = candidates.toArray(new TablutMove[0]);
+    }
+
+    @Benchmark
+    public TablutBoardState processMove() {
+        TablutBoardState child = (TablutBoardState) state.clone();
+        child.processMove(legalMoves[next++ % legalMoves.length]);
+        return child;
+    }
+
+    @Benchmark
+    public long applyUndoMove() {
+        long undo = state.applyMove(packedMoves[next++ % packedMoves.length]);
+        state.undoMove(undo);
+        return undo;
+    }
+
+    @Benchmark
+    public List<TablutMove> getAllLegalMoves() {
+        return state.getAllLegalMoves();
+    }
+
+    @Benchmark
+    public int getAllLegalMovesIntoBuffer() {
+        return state.getAllLegalMoves(buffer);
+    }
+
+    @Benchmark
+    public Object getRandomMove() {
+        return state.getRandomMove();
+    }
+
+    @Benchmark
+    public Object cloneState() {
+        return state.clone();
+    }
+
+    @Benchmark
+    public void isLegal(Blackhole bh) {
+        for (TablutMove move : candidateMoves) {
+            bh.consume(state.isLegal(move));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import coordinates.Coord;
+import coordinates.Coordinates;
+import tablut.TablutBoardState;
+
+/**
+ * Neighbor lookups over every square of the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoordinatesBenchmark {
+    static {
+        Coordinates.setAllCoordinates(TablutBoardState.BOARD_SIZE);
+    }
+
+    @Benchmark
+    public void getNeighbors(Blackhole bh) {
+        for (Coord c : Coordinates.iterCoordinates()) {
+            bh.consume(Coordinates.getNeighbors(c));
+        }
+    }
+}
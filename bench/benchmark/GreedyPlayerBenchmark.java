@@ -0,0 +1,42 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import boardgame.Move;
+import tablut.GreedyTablutPlayer;
+import tablut.TablutBoardState;
+
+/**
+ * One move decision of the greedy reference player, for the side to move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreedyPlayerBenchmark {
+    @Param({ Positions.OPENING, Positions.MIDGAME })
+    public String position;
+
+    private TablutBoardState state;
+    private GreedyTablutPlayer player;
+
+    @Setup
+    public void setup() {
+        state = Positions.get(position);
+        player = new GreedyTablutPlayer();
+        player.setColor(state.getTurnPlayer());
+    }
+
+    @Benchmark
+    public Move chooseMove() {
+        return player.chooseMove(state);
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import student_player.PlayoutKernel;
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * A full uniformly random playout to the end of the game, the inner loop of
+ * every Monte Carlo player. Reported in playouts per second:
+ * - legacyPlayout is how the student player used to do it: a clone, a new
+ *   Random and a boxed move list on every ply,
+ * - randomPlayout clones once and draws moves from a MoveBuffer,
+ * - kernelPlayout is the PlayoutKernel the searches use now, which allocates
+ *   nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PlayoutBenchmark {
+    @Param({ Positions.OPENING, Positions.MIDGAME })
+    public String position;
+
+    private TablutBoardState start;
+    private MoveBuffer moves;
+    private Random rand;
+    private PlayoutKernel kernel;
+
+    @Setup
+    public void setup() {
+        start = Positions.get(position);
+        moves = new MoveBuffer();
+        rand = new Random(1848);
+        kernel = new PlayoutKernel(1848);
+    }
+
+    @Benchmark
+    public int legacyPlayout() {
+        TablutBoardState state = (TablutBoardState) start.clone();
+        while (!state.gameOver()) {
+            List<TablutMove> options = state.getAllLegalMoves();
+            state.processMove(options.get(new Random().nextInt(options.size())));
+        }
+        return state.getWinner();
+    }
+
+    @Benchmark
+    public int randomPlayout() {
+        TablutBoardState state = (TablutBoardState) start.clone();
+        while (!state.gameOver()) {
+            state.getAllLegalMoves(moves);
+            state.applyMove(moves.get(rand.nextInt(moves.size())));
+        }
+        return state.getWinner();
+    }
+
+    @Benchmark
+    public long kernelPlayout() {
+        return kernel.play(start);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import java.util.Random;
+
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+
+/**
+ * Reproducible positions for the benchmarks: the opening, and mid-game
+ * positions reached by a fixed number of seeded random moves.
+ */
+public class Positions {
+    public static final String OPENING = "opening";
+    public static final String MIDGAME = "midgame";
+
+    private static final int MIDGAME_PLIES = 30;
+
+    public static TablutBoardState get(String name) {
+        if (name.equals(OPENING)) {
+            return new TablutBoardState();
+        }
+        if (name.equals(MIDGAME)) {
+            return randomGame(MIDGAME_PLIES, 1917);
+        }
+        throw new IllegalArgumentException("Unknown position: " + name);
+    }
+
+    // Plays random moves from the opening, retrying seeds until the game is still
+    // going after the requested number of plies.
+    public static TablutBoardState randomGame(int plies, long seed) {
+        Random rand = new Random(seed);
+        MoveBuffer moves = new MoveBuffer();
+        while (true) {
+            TablutBoardState state = new TablutBoardState();
+            for (int i = 0; i < plies && !state.gameOver(); i++) {
+                state.getAllLegalMoves(moves);
+                state.applyMove(moves.get(rand.nextInt(moves.size())));
+            }
+            if (!state.gameOver()) {
+                return state;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import student_player.Node;
+import student_player.ParallelSearch;
+import student_player.RootParallelSearch;
+import student_player.TreeParallelSearch;
+import tablut.TablutBoardState;
+
+/**
+ * Scaling of the parallel Monte Carlo tree searches with the number of
+ * threads. Each operation is a fixed-length search from a fresh tree; the
+ * "simulations" counter is the number of MCTS iterations all threads ran,
+ * reported per second. Run with e.g. -Dbench_filter=SearchScaling
+ * -Dbench_args="-p threads=1,2,4,8,16".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchScalingBenchmark {
+    private static final long SEARCH_MS = 200;
+
+    @Param({ "root", "tree" })
+    public String mode;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ Positions.MIDGAME })
+    public String position;
+
+    private TablutBoardState state;
+    private ParallelSearch search;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Simulations {
+        public long simulations;
+    }
+
+    @Setup
+    public void setup() {
+        state = Positions.get(position);
+        search = mode.equals("tree") ? new TreeParallelSearch(threads, 1848) : new RootParallelSearch(threads, 1848);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        search.shutdown();
+    }
+
+    @Benchmark
+    public Object search(Simulations counter) {
+        Node root = new Node(null, state, null);
+        Object move = search.findNextMove(root, System.currentTimeMillis() + SEARCH_MS);
+        counter.simulations += search.getIterations();
+        return move;
+    }
+}
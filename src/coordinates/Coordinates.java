@@ -2,16 +2,37 @@ package coordinates;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import coordinates.Coord;
 
 public class Coordinates {
+    /* The four directions a piece can move in, in the order tables are indexed. */
+    public static final int MINUS_X = 0;
+    public static final int MINUS_Y = 1;
+    public static final int PLUS_X = 2;
+    public static final int PLUS_Y = 3;
+    public static final int NUM_DIRECTIONS = 4;
+    private static final int[] DX = { -1, 0, 1, 0 };
+    private static final int[] DY = { 0, -1, 0, 1 };
+
     private static Coord[][] allCoordinates;
     private static int size;
     private static boolean isSet = false;
 
+    /*
+     * Geometry tables, precomputed once so that the game logic never has to
+     * allocate or catch an exception to find its way around the board. The lists
+     * are unmodifiable and shared.
+     */
+    private static List<Coord> corners;
+    private static List<Coord>[][] neighbors;
+    private static Coord[][][] neighborInDirection; // null if off the board
+    private static List<Coord>[][][] rays; // nearest square first
+    private static int[][] cornerDistances;
+
     // Sets all coords, should ONLY BE called once.
     public static void setAllCoordinates(int max) {
         if (!isSet) {
@@ -22,14 +43,52 @@ public class Coordinates {
                     allCoordinates[i][j] = new Coord(i, j);
                 }
             }
+            precomputeTables();
             isSet = true;
         }
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" }) // generic arrays can't be created directly
+    private static void precomputeTables() {
+        corners = Collections.unmodifiableList(
+                Arrays.asList(get(0, 0), get(0, size - 1), get(size - 1, 0), get(size - 1, size - 1)));
+        neighbors = new List[size][size];
+        neighborInDirection = new Coord[size][size][NUM_DIRECTIONS];
+        rays = new List[size][size][NUM_DIRECTIONS];
+        cornerDistances = new int[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                List<Coord> around = new ArrayList<>();
+                for (int d = 0; d < NUM_DIRECTIONS; d++) {
+                    List<Coord> ray = new ArrayList<>();
+                    for (int x = i + DX[d], y = j + DY[d]; isOnBoard(x, y); x += DX[d], y += DY[d]) {
+                        ray.add(get(x, y));
+                    }
+                    rays[i][j][d] = Collections.unmodifiableList(ray);
+                    neighborInDirection[i][j][d] = ray.isEmpty() ? null : ray.get(0);
+                    if (!ray.isEmpty()) {
+                        around.add(ray.get(0));
+                    }
+                }
+                neighbors[i][j] = Collections.unmodifiableList(around);
+
+                int minDistance = Integer.MAX_VALUE;
+                for (Coord corner : corners) {
+                    minDistance = Math.min(minDistance, get(i, j).distance(corner));
+                }
+                cornerDistances[i][j] = minDistance;
+            }
+        }
+    }
+
     public static Coord get(int i, int j) {
         return allCoordinates[i][j];
     }
 
+    public static boolean isOnBoard(int i, int j) {
+        return i >= 0 && i < size && j >= 0 && j < size;
+    }
+
     public static boolean isCorner(Coord c) {
         return isCorner(c.x, c.y);
     }
@@ -59,22 +118,23 @@ public class Coordinates {
     }
 
     public static List<Coord> getCorners() {
-        return Arrays.asList(get(0, 0), get(0, size - 1), get(size - 1, 0), get(size - 1, size - 1));
+        return corners;
     }
 
+    // Returns the (unmodifiable) list of on-board neighbors, in direction order.
     public static List<Coord> getNeighbors(Coord c) {
-        List<Coord> neighbors = new ArrayList<>();
-        for (int incr : Arrays.asList(-1, 1)) {
-            try {
-                neighbors.add(get(c.x + incr, c.y));
-            } catch (IndexOutOfBoundsException e) {
-            }
-            try {
-                neighbors.add(get(c.x, c.y + incr));
-            } catch (IndexOutOfBoundsException e) {
-            }
-        }
-        return neighbors;
+        return neighbors[c.x][c.y];
+    }
+
+    // Returns the neighbor in the given direction, or null if it is off the board.
+    public static Coord getNeighbor(Coord c, int direction) {
+        return neighborInDirection[c.x][c.y][direction];
+    }
+
+    // Returns the squares a rook would slide over from c in the given direction,
+    // nearest first, up to the edge of the board.
+    public static List<Coord> getRay(Coord c, int direction) {
+        return rays[c.x][c.y][direction];
     }
 
     // Returns the coordinate with which a sandwich would be made around "middle",
@@ -86,25 +146,15 @@ public class Coordinates {
             throw new CoordinateDoesNotExistException(
                     "These coordinates are not adjacent: " + front.toString() + " and " + middle.toString());
         }
-        try {
-            Coord back = get(middle.x - xDiff, middle.y - yDiff);
-            return back;
-        } catch (IndexOutOfBoundsException e) {
+        if (!isOnBoard(middle.x - xDiff, middle.y - yDiff)) {
             throw new CoordinateDoesNotExistException("The sandwich coordinate would be off the board.");
         }
+        return get(middle.x - xDiff, middle.y - yDiff);
     }
 
     // Given a coordinate, returns the distance between it and the closest corner.
     public static int distanceToClosestCorner(Coord kingPos) {
-        List<Coord> corners = getCorners();
-        int minDistance = Integer.MAX_VALUE;
-        for (Coord corner : corners) {
-            int distance = kingPos.distance(corner);
-            if (distance < minDistance) {
-                minDistance = distance;
-            }
-        }
-        return minDistance;
+        return cornerDistances[kingPos.x][kingPos.y];
     }
 
     // Lol at the insanity of OOP, two anonymous classes just to iterate!
@@ -0,0 +1,15 @@
+package student_player;
+
+/**
+ * A search that another thread can make return early, as if its deadline
+ * had passed.
+ */
+public interface Abortable {
+
+    /**
+     * Sets or clears the abort flag; a running search checks it regularly.
+     *
+     * @param aborted
+     */
+    void setAborted(boolean aborted);
+}
@@ -0,0 +1,385 @@
+package student_player;
+
+import boardgame.Board;
+import boardgame.Move;
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Negamax alpha-beta search with iterative deepening. Moves are searched in
+ * the order given by MoveOrdering, the best move of the previous iteration
+ * first at the root, with principal
+ * variation search (null windows for every move but the first) and an
+ * aspiration window around the previous score. The search stops at a hard
+ * deadline and plays the best move of the last iteration that finished.
+ * Leaves are extended by a quiescence search over captures and king
+ * escapes, so they are never evaluated in the middle of an exchange.
+ * Results are kept in a transposition table, which several searches can
+ * share (see LazySmpSearch).
+ */
+public class AlphaBetaSearch implements Abortable {
+
+	public static final int MAX_PLY = 64;
+	public static final int DEFAULT_TABLE_MB = 64;
+
+	private static final int INFINITY = Evaluator.WIN_SCORE + 1;
+	// half width of the aspiration window, a bit less than a king step towards a corner
+	private static final int ASPIRATION_WINDOW = 40;
+	// the clock is read once every this many nodes (a power of two)
+	private static final int CHECK_INTERVAL = 1024;
+
+	private final Evaluator evaluator = new Evaluator();
+	private final MoveBuffer[] moves = new MoveBuffer[MAX_PLY];
+	private final MoveOrdering ordering = new MoveOrdering(MAX_PLY);
+	private final TranspositionTable table;
+	private final int startDepth;
+	private TablutBoardState state;
+	private long deadline;
+	private boolean stopped;
+	private volatile boolean aborted;
+	private long nodes;
+	private int completedDepth;
+	private int rootBestMove;
+
+    /**
+     * Main constructor for AlphaBetaSearch object, with its own
+     * transposition table
+     */
+    public AlphaBetaSearch() {
+    	this(new TranspositionTable(DEFAULT_TABLE_MB), 1);
+    }
+
+    /**
+     * Constructor for a search sharing the given transposition table
+     *
+     * @param table
+     * @param startDepth - depth of the first iteration
+     */
+    public AlphaBetaSearch(TranspositionTable table, int startDepth) {
+    	this.table = table;
+    	this.startDepth = startDepth;
+    	for (int i = 0; i < MAX_PLY; i++) {
+    		moves[i] = new MoveBuffer();
+    	}
+    }
+
+    /**
+     * Searches deeper and deeper until the deadline and returns the best
+     * move of the deepest finished iteration.
+     *
+     * @param boardState - not modified
+     * @param deadline - in System.currentTimeMillis() time
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, long deadline) {
+    	return findNextMove(boardState, TimeManager.fixed(deadline));
+    }
+
+    /**
+     * Same as above, but after every finished iteration the time manager
+     * may stop the search early, if the best move has settled.
+     *
+     * @param boardState - not modified
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, TimeManager clock) {
+    	this.state = (TablutBoardState) boardState.clone();
+    	this.deadline = clock.getHardDeadline();
+    	stopped = false;
+    	nodes = 0;
+    	completedDepth = 0;
+    	ordering.newSearch();
+    	state.getAllLegalMoves(moves[0]);
+    	int bestMove = moves[0].get(0);
+    	int score = 0;
+    	for (int depth = startDepth; depth < MAX_PLY; depth++) {
+    		// aspiration window around the previous score, widened on a fail
+    		int alpha = (depth == startDepth) ? -INFINITY : score - ASPIRATION_WINDOW;
+    		int beta = (depth == startDepth) ? INFINITY : score + ASPIRATION_WINDOW;
+    		int result;
+    		while (true) {
+    			result = searchRoot(depth, alpha, beta, bestMove);
+    			if (stopped) {
+    				break;
+    			}
+    			if (result <= alpha) {
+    				alpha = -INFINITY;
+    			} else if (result >= beta) {
+    				beta = INFINITY;
+    			} else {
+    				break;
+    			}
+    		}
+    		if (stopped) {
+    			break;
+    		}
+    		score = result;
+    		bestMove = rootBestMove;
+    		completedDepth = depth;
+    		// a forced result was found, deeper searches can't change it
+    		if (Math.abs(score) > Evaluator.WIN_SCORE - MAX_PLY || clock.shouldStop(bestMove)) {
+    			break;
+    		}
+    	}
+    	return TablutMove.fromPacked(bestMove);
+    }
+
+    /**
+     * Makes a running search stop at its next clock check, as if the
+     * deadline had passed. Set by a driver running several searches, which
+     * clears it again before the next one.
+     *
+     * @param aborted
+     */
+    public void setAborted(boolean aborted) {
+    	this.aborted = aborted;
+    }
+
+    /**
+     * Number of nodes visited by the last search.
+     *
+     * @return long
+     */
+    public long getNodes() {
+    	return nodes;
+    }
+
+    /**
+     * Depth of the last iteration the last search finished.
+     *
+     * @return int
+     */
+    public int getCompletedDepth() {
+    	return completedDepth;
+    }
+
+    /**
+     * Searches the root moves, the given move first, and remembers the best.
+     *
+     * @param depth
+     * @param alpha
+     * @param beta
+     * @param firstMove
+     * @return int - score for the player to move
+     */
+    private int searchRoot(int depth, int alpha, int beta, int firstMove) {
+    	MoveBuffer buffer = moves[0];
+    	ordering.order(state, buffer, firstMove, 0);
+    	int best = -INFINITY;
+    	for (int i = 0; i < buffer.size(); i++) {
+    		int move = buffer.get(i);
+    		int score = searchMove(move, depth, alpha, beta, 0, i == 0);
+    		if (stopped) {
+    			return 0;
+    		}
+    		if (score > best) {
+    			best = score;
+    			rootBestMove = move;
+    			if (score > alpha) {
+    				alpha = score;
+    				if (alpha >= beta) {
+    					break;
+    				}
+    			}
+    		}
+    	}
+    	return best;
+    }
+
+    /**
+     * Negamax search of the current state.
+     *
+     * @param depth - remaining depth
+     * @param alpha
+     * @param beta
+     * @param ply - distance from the root
+     * @return int - score for the player to move
+     */
+    private int negamax(int depth, int alpha, int beta, int ply) {
+    	if (depth == 0) {
+    		return quiescence(alpha, beta, ply);
+    	}
+    	if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && (aborted || System.currentTimeMillis() >= deadline)) {
+    		stopped = true;
+    	}
+    	if (stopped) {
+    		return 0;
+    	}
+    	if (state.gameOver()) {
+    		return terminalScore(ply);
+    	}
+    	
+    	// a deep enough stored result may settle the node, otherwise its
+    	// best move is searched first; near the draw on turns the key includes
+    	// the turn number, since the same pieces then have a different future
+    	long key = state.drawHorizonKey(MAX_PLY);
+    	long entry = table.probe(key);
+    	int hashMove = 0;
+    	if (entry != TranspositionTable.NONE) {
+    		hashMove = TranspositionTable.move(entry);
+    		if (TranspositionTable.depth(entry) >= depth) {
+    			int score = scoreFromTable(TranspositionTable.score(entry), ply);
+    			int bound = TranspositionTable.bound(entry);
+    			if (bound == TranspositionTable.EXACT
+    					|| (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+    					|| (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+    				return score;
+    			}
+    		}
+    	}
+    	
+    	MoveBuffer buffer = moves[ply];
+    	state.getAllLegalMoves(buffer);
+    	ordering.order(state, buffer, hashMove, ply);
+    	int originalAlpha = alpha;
+    	int best = -INFINITY;
+    	int bestMove = 0;
+    	for (int i = 0; i < buffer.size(); i++) {
+    		int move = buffer.get(i);
+    		int score = searchMove(move, depth, alpha, beta, ply, i == 0);
+    		if (stopped) {
+    			return 0;
+    		}
+    		if (score > best) {
+    			best = score;
+    			bestMove = move;
+    			if (score > alpha) {
+    				alpha = score;
+    				if (alpha >= beta) {
+    					if (!state.isCapture(move)) {
+    						ordering.recordCutoff(move, depth, ply);
+    					}
+    					break;
+    				}
+    			}
+    		}
+    	}
+    	int bound = (best <= originalAlpha) ? TranspositionTable.UPPER_BOUND
+    			: (best >= beta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+    	table.store(key, bestMove, depth, bound, scoreToTable(best, ply));
+    	return best;
+    }
+    
+    /**
+     * Win scores count plies from the root; the table stores them counted
+     * from the node instead, so they stay right wherever the node is reached.
+     *
+     * @param score
+     * @param ply
+     * @return int
+     */
+    private static int scoreToTable(int score, int ply) {
+    	if (score > Evaluator.WIN_SCORE - MAX_PLY) {
+    		return score + ply;
+    	}
+    	if (score < -(Evaluator.WIN_SCORE - MAX_PLY)) {
+    		return score - ply;
+    	}
+    	return score;
+    }
+    
+    private static int scoreFromTable(int score, int ply) {
+    	if (score > Evaluator.WIN_SCORE - MAX_PLY) {
+    		return score - ply;
+    	}
+    	if (score < -(Evaluator.WIN_SCORE - MAX_PLY)) {
+    		return score + ply;
+    	}
+    	return score;
+    }
+
+    /**
+     * Searches only the captures and king escapes of the current state, until
+     * it is quiet. The player to move may also stand pat on the static
+     * evaluation, since it doesn't have to make any of these moves.
+     *
+     * @param alpha
+     * @param beta
+     * @param ply - distance from the root
+     * @return int - score for the player to move
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+    	if ((++nodes & (CHECK_INTERVAL - 1)) == 0 && (aborted || System.currentTimeMillis() >= deadline)) {
+    		stopped = true;
+    	}
+    	if (stopped) {
+    		return 0;
+    	}
+    	if (state.gameOver()) {
+    		return terminalScore(ply);
+    	}
+    	int best = evaluator.evaluate(state, state.getTurnPlayer());
+    	if (best >= beta || ply >= MAX_PLY - 1) {
+    		return best;
+    	}
+    	if (best > alpha) {
+    		alpha = best;
+    	}
+    	MoveBuffer buffer = moves[ply];
+    	state.getCaptureAndEscapeMoves(buffer);
+    	ordering.order(state, buffer, 0, ply);
+    	for (int i = 0; i < buffer.size(); i++) {
+    		long undo = state.applyMove(buffer.get(i));
+    		int score = -quiescence(-beta, -alpha, ply + 1);
+    		state.undoMove(undo);
+    		if (stopped) {
+    			return 0;
+    		}
+    		if (score > best) {
+    			best = score;
+    			if (score > alpha) {
+    				alpha = score;
+    				if (alpha >= beta) {
+    					break;
+    				}
+    			}
+    		}
+    	}
+    	return best;
+    }
+
+    /**
+     * Plays a move and searches it. The first move gets the full window;
+     * the others are searched with a null window, which only proves them
+     * worse than the best so far, and are re-searched if they turn out better.
+     *
+     * @param move
+     * @param depth - remaining depth before the move
+     * @param alpha
+     * @param beta
+     * @param ply - distance from the root before the move
+     * @param first - whether this is the first move searched at this node
+     * @return int - score for the player who plays the move
+     */
+    private int searchMove(int move, int depth, int alpha, int beta, int ply, boolean first) {
+    	long undo = state.applyMove(move);
+    	int score;
+    	if (first) {
+    		score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+    	} else {
+    		score = -negamax(depth - 1, -alpha - 1, -alpha, ply + 1);
+    		if (score > alpha && score < beta) {
+    			score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+    		}
+    	}
+    	state.undoMove(undo);
+    	return score;
+    }
+
+    /**
+     * Score of a finished game for the player to move. Quicker wins and
+     * slower losses score better.
+     *
+     * @param ply
+     * @return int
+     */
+    private int terminalScore(int ply) {
+    	int winner = state.getWinner();
+    	if (winner == Board.DRAW) {
+    		return 0;
+    	}
+    	return (winner == state.getTurnPlayer()) ? Evaluator.WIN_SCORE - ply : -(Evaluator.WIN_SCORE - ply);
+    }
+}
@@ -0,0 +1,184 @@
+package student_player;
+
+import java.util.Random;
+
+import boardgame.Board;
+import boardgame.Move;
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Monte Carlo tree search over a NodeStore. It works like
+ * MonteCarloTreeSearch, but every iteration replays the moves of the
+ * selected line on one scratch state and takes them back after the playout,
+ * so no board state is cloned or kept per node and the tree is a handful
+ * of int arrays. The store is emptied before every search.
+ */
+public class ArenaMonteCarloTreeSearch {
+
+	// 2M nodes, 48 MB of arrays
+	public static final int DEFAULT_CAPACITY = 1 << 21;
+
+	// a game lasts at most MAX_TURNS turns of two moves each
+	private static final int MAX_GAME_PLIES = 2 * TablutBoardState.MAX_TURNS + 2;
+	// the time manager is asked whether to stop once every this many iterations (a power of two)
+	private static final int CHECK_INTERVAL = 256;
+
+	private final NodeStore store;
+	private final Random rand;
+	private final PlayoutKernel playout;
+	private final MoveBuffer moves = new MoveBuffer();
+	private final long[] undos = new long[MAX_GAME_PLIES];
+	private TablutBoardState state;
+	private int iterations;
+
+    /**
+     * Main constructor for ArenaMonteCarloTreeSearch object
+     *
+     * @param capacity - maximum number of nodes
+     * @param seed
+     */
+    public ArenaMonteCarloTreeSearch(int capacity, long seed) {
+    	this.store = new NodeStore(capacity);
+    	this.rand = new Random(seed);
+    	this.playout = new PlayoutKernel(rand.nextLong());
+    }
+
+    /**
+     * Searches from the given state until the deadline and returns the move
+     * of the most visited child of the root.
+     *
+     * @param boardState - not modified
+     * @param deadline - in System.currentTimeMillis() time
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, long deadline) {
+    	return findNextMove(boardState, TimeManager.fixed(deadline));
+    }
+
+    /**
+     * Searches from the given state until the time manager says to stop,
+     * which happens early once the most visited child has settled.
+     *
+     * @param boardState - not modified
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, TimeManager clock) {
+    	state = (TablutBoardState) boardState.clone();
+    	int root = store.addRoot();
+    	state.getAllLegalMoves(moves);
+    	store.addChildren(root, moves);
+    	iterations = 0;
+    	long deadline = clock.getHardDeadline();
+    	while (System.currentTimeMillis() < deadline) {
+    		if ((iterations & (CHECK_INTERVAL - 1)) == 0
+    				&& clock.shouldStop(store.getMove(mostVisitedChild(root)))) {
+    			break;
+    		}
+    		iterations++;
+    		// selection, playing the moves down the tree
+    		int depth = 0;
+    		int node = root;
+    		while (store.isExpanded(node) && store.getChildCount(node) > 0) {
+    			node = selectChild(node);
+    			undos[depth++] = state.applyMove(store.getMove(node));
+    		}
+    		// expansion, once a leaf has been simulated from before
+    		if (!state.gameOver() && store.getVisits(node) > 0) {
+    			state.getAllLegalMoves(moves);
+    			if (store.addChildren(node, moves)) {
+    				node = store.getFirstChild(node) + rand.nextInt(store.getChildCount(node));
+    				undos[depth++] = state.applyMove(store.getMove(node));
+    			}
+    		}
+    		// simulation, then back to the root state
+    		int winner = PlayoutKernel.winner(playout.play(state));
+    		while (depth > 0) {
+    			state.undoMove(undos[--depth]);
+    		}
+    		// backpropagation
+    		for (; node != NodeStore.NONE; node = store.getParent(node)) {
+    			store.update(node, result(node, winner));
+    		}
+    	}
+    	return TablutMove.fromPacked(store.getMove(mostVisitedChild(root)));
+    }
+
+    /**
+     * Number of simulations run by the last search.
+     *
+     * @return int
+     */
+    public int getIterations() {
+    	return iterations;
+    }
+
+    /**
+     * Number of nodes the last search created.
+     *
+     * @return int
+     */
+    public int getNodeCount() {
+    	return store.size();
+    }
+
+    /**
+     * Bytes taken by the node store.
+     *
+     * @return long
+     */
+    public long memoryBytes() {
+    	return store.memoryBytes();
+    }
+
+    /**
+     * Finds the child of a node with the highest UCT value
+     *
+     * @param node
+     * @return int
+     */
+    private int selectChild(int node) {
+    	int first = store.getFirstChild(node);
+    	int best = first;
+    	double bestValue = Double.NEGATIVE_INFINITY;
+    	for (int child = first; child < first + store.getChildCount(node); child++) {
+    		double value = UCT.uctValue(store.getVisits(node), store.getWinScore(child), store.getVisits(child));
+    		if (value > bestValue) {
+    			bestValue = value;
+    			best = child;
+    		}
+    	}
+    	return best;
+    }
+
+    private int mostVisitedChild(int node) {
+    	int first = store.getFirstChild(node);
+    	int best = first;
+    	for (int child = first; child < first + store.getChildCount(node); child++) {
+    		if (store.getVisits(child) > store.getVisits(best)) {
+    			best = child;
+    		}
+    	}
+    	return best;
+    }
+
+    /**
+     * Result of a simulated game for the player who made a node's move, in
+     * half points. The root has no move and scores nothing.
+     *
+     * @param node
+     * @param winner
+     * @return int
+     */
+    private int result(int node, int winner) {
+    	if (store.getParent(node) == NodeStore.NONE) {
+    		return 0;
+    	}
+    	if (winner == Board.DRAW) {
+    		return 1;
+    	}
+    	return (winner == TablutMove.player(store.getMove(node))) ? 2 : 0;
+    }
+}
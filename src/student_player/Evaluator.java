@@ -0,0 +1,78 @@
+package student_player;
+
+import coordinates.Coord;
+import coordinates.Coordinates;
+import tablut.TablutBoardState;
+
+/**
+ * Static evaluation of a board state, used at the leaves of the alpha-beta
+ * search. The terms are the ones the student player has always used: the
+ * material balance, how close each side's pieces are to the king and how
+ * close the king is to a corner. Scores are symmetric, evaluating for the
+ * opponent gives the negated score.
+ */
+public class Evaluator {
+
+	// score of a won game, minus the number of plies it takes to win
+	public static final int WIN_SCORE = 10000;
+
+	private static final int NUM_PIECES_WEIGHTING = 2;
+	private static final int KING_DISTANCE_WEIGHTING = 50;
+	private static final int PIECES_TO_KING_WEIGHTING = 1;
+
+	private final int[] playerSquares = new int[TablutBoardState.MAX_PIECES];
+	private final int[] opponentSquares = new int[TablutBoardState.MAX_PIECES];
+
+    /**
+     * Calculate heuristic based on state of the board, from the point of
+     * view of the given player
+     *
+     * @param state
+     * @param player
+     * @return int - heuristic calculation
+     */
+    public int evaluate(TablutBoardState state, int player) {
+    	// trivial heuristic
+    	if (state.gameOver()) {
+    		if (state.getWinner() == player) {
+    			return WIN_SCORE;
+    		}
+    		if (state.getWinner() == 1 - player) {
+    			return -WIN_SCORE;
+    		}
+    		return 0;
+    	}
+    	int score = 0;
+    	// get the king position
+    	Coord king = state.getKingPosition();
+    	// gain points for remaining pieces, lose points for opponents remaining pieces
+    	int playerPieces = state.getPieceSquares(player, playerSquares);
+    	int opponentPieces = state.getPieceSquares(1 - player, opponentSquares);
+    	score += NUM_PIECES_WEIGHTING * playerPieces;
+    	score -= NUM_PIECES_WEIGHTING * opponentPieces;
+    	// gain points for pieces being close to king, lose points for opponent being close to king
+    	for (int i = 0; i < playerPieces; i++) {
+    		score -= PIECES_TO_KING_WEIGHTING * squareToCoord(playerSquares[i]).distance(king);
+    	}
+    	for (int i = 0; i < opponentPieces; i++) {
+    		score += PIECES_TO_KING_WEIGHTING * squareToCoord(opponentSquares[i]).distance(king);
+    	}
+    	// gain/lose points for king being close to corner
+    	if (player == TablutBoardState.SWEDE) {
+    		score -= KING_DISTANCE_WEIGHTING * Coordinates.distanceToClosestCorner(king);
+    	} else {
+    		score += KING_DISTANCE_WEIGHTING * Coordinates.distanceToClosestCorner(king);
+    	}
+    	return score;
+    }
+
+    /**
+     * Convert a board square index into its coordinate
+     *
+     * @param square
+     * @return Coord
+     */
+    private Coord squareToCoord(int square) {
+    	return Coordinates.get(square / TablutBoardState.BOARD_SIZE, square % TablutBoardState.BOARD_SIZE);
+    }
+}
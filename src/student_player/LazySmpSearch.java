@@ -0,0 +1,126 @@
+package student_player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import boardgame.Move;
+import tablut.TablutBoardState;
+
+/**
+ * Lazy SMP: several alpha-beta searches of the same position run at once
+ * and share one transposition table, with no other coordination. The
+ * helpers fill the table with results the main search then finds, and half
+ * of them start one iteration deeper so the threads don't all search the
+ * same depth at the same time. The main search runs on the calling thread.
+ */
+public class LazySmpSearch {
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final AlphaBetaSearch[] searches;
+    private final SearchThreads pool;
+
+    /**
+     * Main constructor for LazySmpSearch object
+     *
+     * @param threads - number of searches, including the calling thread
+     * @param tableMegabytes - size of the shared transposition table
+     */
+    public LazySmpSearch(int threads, int tableMegabytes) {
+    	this.threads = Math.max(1, threads);
+    	this.table = new TranspositionTable(tableMegabytes);
+    	this.searches = new AlphaBetaSearch[this.threads];
+    	for (int i = 0; i < this.threads; i++) {
+    		searches[i] = new AlphaBetaSearch(table, 1 + (i % 2));
+    	}
+    	this.pool = new SearchThreads("alphabeta-helper", searches);
+    }
+
+    /**
+     * Searches with every thread until the deadline, or until the main
+     * search finds a forced result, and returns the move of the search that
+     * finished the deepest iteration, the main search on a tie.
+     *
+     * @param boardState - not modified
+     * @param deadline - in System.currentTimeMillis() time
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, long deadline) {
+    	return findNextMove(boardState, TimeManager.fixed(deadline));
+    }
+
+    /**
+     * Same as above, but the main search stops when the time manager says
+     * so, and the helpers with it.
+     *
+     * @param boardState - not modified
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    public Move findNextMove(TablutBoardState boardState, TimeManager clock) {
+    	List<Future<Move>> futures = new ArrayList<Future<Move>>();
+    	pool.start();
+    	for (int i = 1; i < threads; i++) {
+    		final AlphaBetaSearch helper = searches[i];
+    		futures.add(pool.submit(() -> helper.findNextMove(boardState, clock.getHardDeadline())));
+    	}
+    	Move bestMove;
+    	List<Move> helperMoves;
+    	try {
+    		bestMove = searches[0].findNextMove(boardState, clock);
+    	} finally {
+    		// the helpers must stop even if the main search failed
+    		helperMoves = pool.finish(futures);
+    	}
+    	int bestDepth = searches[0].getCompletedDepth();
+    	for (int i = 1; i < threads; i++) {
+    		if (searches[i].getCompletedDepth() > bestDepth) {
+    			bestMove = helperMoves.get(i - 1);
+    			bestDepth = searches[i].getCompletedDepth();
+    		}
+    	}
+    	return bestMove;
+    }
+
+    /**
+     * Number of nodes visited by all the searches during the last search.
+     *
+     * @return long
+     */
+    public long getNodes() {
+    	long nodes = 0;
+    	for (AlphaBetaSearch search : searches) {
+    		nodes += search.getNodes();
+    	}
+    	return nodes;
+    }
+
+    /**
+     * Depth of the deepest iteration finished by the last search.
+     *
+     * @return int
+     */
+    public int getCompletedDepth() {
+    	int depth = 0;
+    	for (AlphaBetaSearch search : searches) {
+    		depth = Math.max(depth, search.getCompletedDepth());
+    	}
+    	return depth;
+    }
+
+    /**
+     * Makes a running search return soon, from any thread. Used to stop a
+     * search that pondered without a deadline.
+     */
+    public void abort() {
+    	pool.abort();
+    }
+
+    /**
+     * Stops the helper threads, they are started again on the next search.
+     */
+    public void shutdown() {
+    	pool.shutdown();
+    }
+}
@@ -0,0 +1,240 @@
+package student_player;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import boardgame.Move;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Monte Carlo tree search. Every iteration descends the tree with UCT,
+ * adds one child for a move not tried yet, plays a random game out from there and
+ * backpropagates the result, so the tree keeps growing deeper where the
+ * good moves are.
+ */
+public class MonteCarloTreeSearch implements Abortable {
+	
+	// cap on the nodes one search may create, so a long search can't run out of memory
+	public static final int DEFAULT_NODE_LIMIT = 500000;
+	
+	// the time manager is asked whether to stop once every this many iterations (a power of two)
+	private static final int CHECK_INTERVAL = 256;
+	
+    private Random rand;
+    private PlayoutKernel playout;
+    private int nodeLimit;
+    private int nodeCount;
+    private volatile boolean aborted;
+    
+    /**
+     * Main constructor for MonteCarloTreeSearch object
+     */
+    public MonteCarloTreeSearch() {
+    	this(new Random(), DEFAULT_NODE_LIMIT);
+    }
+    
+    /**
+     * Constructor for a search with a seeded random generator, as used by each
+     * worker of a parallel search
+     * 
+     * @param seed
+     * @param nodeLimit - nodes this search may create before it stops expanding
+     */
+    public MonteCarloTreeSearch(long seed, int nodeLimit) {
+    	this(new Random(seed), nodeLimit);
+    }
+    
+    private MonteCarloTreeSearch(Random rand, int nodeLimit) {
+    	this.rand = rand;
+    	this.playout = new PlayoutKernel(rand.nextLong());
+    	this.nodeLimit = nodeLimit;
+    }
+    
+    /**
+     * Searches from the given root until the deadline and returns the move
+     * of the most visited child.
+     * 
+     * @param root
+     * @param deadline - in System.currentTimeMillis() time
+     * @return Move
+     */
+    public Move findNextMove(Node root, long deadline) {
+    	search(root, deadline);
+    	return root.getChildWithMaxVisits().getLatestMove();
+    }
+    
+    /**
+     * Grows the tree below the given root until the deadline.
+     * 
+     * @param root
+     * @param deadline - in System.currentTimeMillis() time
+     * @return int - number of simulations run
+     */
+    public int search(Node root, long deadline) {
+    	return search(root, TimeManager.fixed(deadline));
+    }
+    
+    /**
+     * Grows the tree below the given root until the time manager says to
+     * stop, which happens early once the most visited child has settled.
+     * 
+     * @param root
+     * @param clock - deadlines of the current move
+     * @return int - number of simulations run
+     */
+    public int search(Node root, TimeManager clock) {
+    	root.createChildNodes();
+    	nodeCount = 0;
+    	int iterations = 0;
+    	long deadline = clock.getHardDeadline();
+    	while (!aborted && System.currentTimeMillis() < deadline) {
+    		if ((iterations & (CHECK_INTERVAL - 1)) == 0 && clock.shouldStop(bestMove(root))) {
+    			break;
+    		}
+    		iterations++;
+    		// selection
+    		Node promisingNode = selectPromisingNode(root);
+    		// expansion of one move not tried yet
+    		if (!promisingNode.getState().gameOver() && nodeCount < nodeLimit) {
+    			Node child = promisingNode.expandNext(rand);
+    			if (child != null) {
+    				nodeCount++;
+    				promisingNode = child;
+    			}
+    		}
+    		// simulation
+    		int winner = simulateRandomPlayout(promisingNode.getState());
+    		// backpropagation
+    		backPropagation(promisingNode, winner);
+    	}
+    	return iterations;
+    }
+    
+    /**
+     * Grows a tree shared with other threads until the deadline. Every node
+     * on the way down takes a virtual loss so that the threads spread over
+     * different lines, and the node limit applies to the nodes created by
+     * all of them.
+     * 
+     * @param root - already expanded
+     * @param deadline - in System.currentTimeMillis() time
+     * @param sharedNodeCount - nodes created in the tree so far
+     * @return int - number of simulations run
+     */
+    public int searchShared(Node root, long deadline, AtomicInteger sharedNodeCount) {
+    	return searchShared(root, TimeManager.fixed(deadline), sharedNodeCount);
+    }
+    
+    /**
+     * Same as above, until the time manager says to stop. Only one of the
+     * threads should be given the move's time manager, the others get a
+     * fixed deadline and are aborted when it stops.
+     * 
+     * @param root - already expanded
+     * @param clock - deadlines of the current move
+     * @param sharedNodeCount - nodes created in the tree so far
+     * @return int - number of simulations run
+     */
+    public int searchShared(Node root, TimeManager clock, AtomicInteger sharedNodeCount) {
+    	int iterations = 0;
+    	long deadline = clock.getHardDeadline();
+    	while (!aborted && System.currentTimeMillis() < deadline) {
+    		if ((iterations & (CHECK_INTERVAL - 1)) == 0 && clock.shouldStop(bestMove(root))) {
+    			break;
+    		}
+    		iterations++;
+    		// selection
+    		Node promisingNode = root;
+    		promisingNode.addVirtualLoss();
+    		while (promisingNode.isFullyExpanded() && promisingNode.getChildCount() > 0) {
+    			Node next = UCT.findBestNodeWithUCT(promisingNode);
+    			if (next == null) {
+    				break; // every child is still being built by other threads
+    			}
+    			promisingNode = next;
+    			promisingNode.addVirtualLoss();
+    		}
+    		// expansion of one move not tried yet, each move is claimed by
+    		// a single thread
+    		if (!promisingNode.getState().gameOver() && sharedNodeCount.get() < nodeLimit) {
+    			Node child = promisingNode.expandNext(rand);
+    			if (child != null) {
+    				sharedNodeCount.incrementAndGet();
+    				promisingNode = child;
+    				promisingNode.addVirtualLoss();
+    			}
+    		}
+    		// simulation
+    		int winner = simulateRandomPlayout(promisingNode.getState());
+    		// backpropagation
+    		for (Node node = promisingNode; node != null; node = node.getParent()) {
+    			node.updateAfterVirtualLoss(winner);
+    		}
+    	}
+    	return iterations;
+    }
+    
+    /**
+     * Makes a running search stop before its next iteration. Set by a
+     * parallel search once its first worker stops, and cleared again before
+     * the next search.
+     * 
+     * @param aborted
+     */
+    public void setAborted(boolean aborted) {
+    	this.aborted = aborted;
+    }
+    
+    /**
+     * The move of the most visited child of the root, packed
+     * 
+     * @param root
+     * @return int - 0 if no child has been created yet
+     */
+    private static int bestMove(Node root) {
+    	Node best = root.getChildWithMaxVisits();
+    	return (best == null) ? 0 : ((TablutMove) best.getLatestMove()).toPacked();
+    }
+    
+    /**
+     * Descends from the root using UCT until reaching a node with moves
+     * that haven't been tried yet
+     * 
+     * @param root
+     * @return Node
+     */
+    private Node selectPromisingNode(Node root) {
+    	Node node = root;
+    	while (node.isFullyExpanded() && node.getChildCount() > 0) {
+    		node = UCT.findBestNodeWithUCT(node);
+    	}
+    	return node;
+    }
+    
+    /**
+     * Updates the statistics of every node from the given one up to the root
+     * 
+     * @param node
+     * @param winner
+     */
+    private void backPropagation(Node node, int winner) {
+    	while (node != null) {
+    		node.update(winner);
+    		node = node.getParent();
+    	}
+    }
+    
+    /**
+     * Simulate a random play out until game ends
+     * 
+     * @param state
+     * @return int - winner of the game
+     */
+    private int simulateRandomPlayout(TablutBoardState state) {
+    	if (state.gameOver()) {
+    		return state.getWinner();
+    	}
+    	return PlayoutKernel.winner(playout.play(state));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package student_player;
+
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Sorts the moves of a node so that alpha-beta searches the likely best ones
+ * first and cuts off sooner. In order: the transposition table move, king
+ * moves to a corner, captures, the two killer moves of the ply (quiet moves
+ * that caused a cutoff at the same ply elsewhere), then the remaining quiet
+ * moves by their history score, indexed by from and to square.
+ */
+public class MoveOrdering {
+
+	private static final int SQUARES = TablutBoardState.BOARD_SIZE * TablutBoardState.BOARD_SIZE;
+
+	private static final int HASH_MOVE_SCORE = 1 << 30;
+	private static final int KING_TO_CORNER_SCORE = 1 << 29;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int KILLER_SCORE = 1 << 27;
+	// the history scores are halved once one gets this large, so they stay below the killers
+	private static final int HISTORY_LIMIT = 1 << 26;
+
+	private final int[][] killers;
+	private final int[] history = new int[SQUARES * SQUARES];
+	private final int[][] scores;
+
+    /**
+     * Main constructor for MoveOrdering object
+     *
+     * @param maxPly - deepest ply that will be ordered, plus one
+     */
+    public MoveOrdering(int maxPly) {
+    	killers = new int[maxPly][2];
+    	scores = new int[maxPly][MoveBuffer.CAPACITY];
+    }
+
+    /**
+     * Forgets the killers and ages the history, before a new search.
+     */
+    public void newSearch() {
+    	for (int[] plyKillers : killers) {
+    		plyKillers[0] = 0;
+    		plyKillers[1] = 0;
+    	}
+    	for (int i = 0; i < history.length; i++) {
+    		history[i] /= 2;
+    	}
+    }
+
+    /**
+     * Sorts the moves of the given state in place, best first.
+     *
+     * @param state - the state the moves were generated for
+     * @param moves
+     * @param hashMove - move from the transposition table, 0 if none
+     * @param ply
+     */
+    public void order(TablutBoardState state, MoveBuffer moves, int hashMove, int ply) {
+    	int[] plyScores = scores[ply];
+    	int[] plyKillers = killers[ply];
+    	for (int i = 0; i < moves.size(); i++) {
+    		int move = moves.get(i);
+    		int score;
+    		if (move == hashMove) {
+    			score = HASH_MOVE_SCORE;
+    		} else if (state.isKingToCorner(move)) {
+    			score = KING_TO_CORNER_SCORE;
+    		} else if (state.isCapture(move)) {
+    			score = CAPTURE_SCORE;
+    		} else if (move == plyKillers[0]) {
+    			score = KILLER_SCORE + 1;
+    		} else if (move == plyKillers[1]) {
+    			score = KILLER_SCORE;
+    		} else {
+    			score = history[historyIndex(move)];
+    		}
+    		// insertion sort, the lists are short
+    		int j = i;
+    		while (j > 0 && plyScores[j - 1] < score) {
+    			plyScores[j] = plyScores[j - 1];
+    			moves.set(j, moves.get(j - 1));
+    			j--;
+    		}
+    		plyScores[j] = score;
+    		moves.set(j, move);
+    	}
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff, as a killer of its ply
+     * and in the history table, weighted by the depth it was searched to.
+     *
+     * @param move
+     * @param depth
+     * @param ply
+     */
+    public void recordCutoff(int move, int depth, int ply) {
+    	int[] plyKillers = killers[ply];
+    	if (plyKillers[0] != move) {
+    		plyKillers[1] = plyKillers[0];
+    		plyKillers[0] = move;
+    	}
+    	int index = historyIndex(move);
+    	history[index] += depth * depth;
+    	if (history[index] >= HISTORY_LIMIT) {
+    		for (int i = 0; i < history.length; i++) {
+    			history[i] /= 2;
+    		}
+    	}
+    }
+
+    private static int historyIndex(int move) {
+    	return TablutMove.from(move) * SQUARES + TablutMove.to(move);
+    }
+}
@@ -3,24 +3,58 @@ package student_player;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import boardgame.Board;
 import boardgame.Move;
+import tablut.MoveBuffer;
 import tablut.TablutBoardState;
 import tablut.TablutMove;
 
 /**
- * This class represents a node used in our search tree
+ * This class represents a node used in our search tree. Children are
+ * expanded lazily: the legal moves are generated once, and a child (with
+ * its cloned state) is only built when the search first tries its move.
+ * The statistics are updated atomically and every move is claimed by a
+ * single thread, so several threads can search the same tree.
  * 
  * @author johnw
  *
  */
 public class Node {
 	TablutBoardState state;
-    List<Node> children;
-    int winScore = 0;
+    Node parent;
+    volatile Expansion expansion; // null until the moves are generated
+    volatile int visitCount = 0;
+    volatile int halfWins = 0; // win score in half points, a draw is worth one
     Move latestMove;
     
+    private static final AtomicIntegerFieldUpdater<Node> VISITS =
+    		AtomicIntegerFieldUpdater.newUpdater(Node.class, "visitCount");
+    private static final AtomicIntegerFieldUpdater<Node> HALF_WINS =
+    		AtomicIntegerFieldUpdater.newUpdater(Node.class, "halfWins");
+    private static final AtomicReferenceFieldUpdater<Node, Expansion> EXPANSION =
+    		AtomicReferenceFieldUpdater.newUpdater(Node.class, Expansion.class, "expansion");
+    
+    /**
+     * The legal moves of a node and the children built so far: child i
+     * plays moves[i], and the first "claimed" moves have been (or are being)
+     * built.
+     */
+    private static final class Expansion {
+    	final int[] moves;
+    	final AtomicReferenceArray<Node> children;
+    	final AtomicInteger claimed = new AtomicInteger();
+    	
+    	Expansion(int[] moves) {
+    		this.moves = moves;
+    		this.children = new AtomicReferenceArray<Node>(moves.length);
+    	}
+    }
+    
     /**
      * Main constructor for Node object
      * 
@@ -28,33 +62,142 @@ public class Node {
      * @param state
      */
     public Node(Node parent, TablutBoardState state, Move move) {
+    	this.parent = parent;
     	this.state = state;
     	this.latestMove = move;
     }
     
     /**
-     * Creates the children nodes and adds them to the children list
+     * Builds the child of the next untried move and returns it, or null if
+     * every move has been tried. The first call generates the moves, in a
+     * random order if a generator is given.
+     * 
+     * @param rand - may be null
+     * @return Node
+     */
+    public Node expandNext(Random rand) {
+    	Expansion e = getExpansion(rand);
+    	int index = e.claimed.getAndIncrement();
+    	if (index >= e.moves.length) {
+    		return null;
+    	}
+    	TablutBoardState childState = (TablutBoardState) state.clone();
+    	childState.applyMove(e.moves[index]);
+    	Node child = new Node(this, childState, TablutMove.fromPacked(e.moves[index]));
+    	e.children.set(index, child);
+    	return child;
+    }
+    
+    /**
+     * Builds the children of all the moves not tried yet.
      */
     public void createChildNodes() {
-    	children = new ArrayList<Node>();
-    	List<TablutMove> options = state.getAllLegalMoves();
-    	for (TablutMove move : options) {
-            TablutBoardState childState = (TablutBoardState) state.clone();
-            childState.processMove(move);
-            Node childNode = new Node(this, childState, move);
-            children.add(childNode);
-        }
+    	while (expandNext(null) != null) {
+    	}
+    }
+    
+    /**
+     * Generates the moves of this node once; if two threads race, the
+     * first list published wins.
+     * 
+     * @param rand - shuffles the moves, may be null
+     * @return Expansion
+     */
+    private Expansion getExpansion(Random rand) {
+    	Expansion e = expansion;
+    	if (e != null) {
+    		return e;
+    	}
+    	MoveBuffer buffer = new MoveBuffer();
+    	state.getAllLegalMoves(buffer);
+    	int[] moves = new int[buffer.size()];
+    	for (int i = 0; i < moves.length; i++) {
+    		moves[i] = buffer.get(i);
+    	}
+    	if (rand != null) {
+    		for (int i = moves.length - 1; i > 0; i--) {
+    			int j = rand.nextInt(i + 1);
+    			int swap = moves[i];
+    			moves[i] = moves[j];
+    			moves[j] = swap;
+    		}
+    	}
+    	EXPANSION.compareAndSet(this, null, new Expansion(moves));
+    	return expansion;
     }
     
     /**
-     * Retrieves all the children nodes.
+     * Whether every move of this node has a child, so the search should
+     * pick among them rather than try a new move.
+     * 
+     * @return
+     */
+    public boolean isFullyExpanded() {
+    	Expansion e = expansion;
+    	return e != null && e.claimed.get() >= e.moves.length;
+    }
+    
+    /**
+     * Number of children built, or being built, so far.
+     * 
+     * @return
+     */
+    public int getChildCount() {
+    	Expansion e = expansion;
+    	return (e == null) ? 0 : Math.min(e.claimed.get(), e.moves.length);
+    }
+    
+    /**
+     * Retrieves a child, null if another thread is still building it.
+     * 
+     * @param index - below getChildCount()
+     * @return
+     */
+    public Node getChild(int index) {
+    	return expansion.children.get(index);
+    }
+    
+    /**
+     * Retrieves the children built so far, in a new list.
      * 
      * @return
      */
     public List<Node> getChildren() {
+    	List<Node> children = new ArrayList<Node>();
+    	for (int i = 0; i < getChildCount(); i++) {
+    		Node child = getChild(i);
+    		if (child != null) {
+    			children.add(child);
+    		}
+    	}
     	return children;
     }
     
+    /**
+     * Finds the child reached by the given move, if it has been created.
+     * 
+     * @param move
+     * @return Node - or null if it doesn't exist
+     */
+    public Node findChild(Move move) {
+    	int packed = ((TablutMove) move).toPacked();
+    	for (int i = 0; i < getChildCount(); i++) {
+    		Node child = getChild(i);
+    		if (child != null && ((TablutMove) child.getLatestMove()).toPacked() == packed) {
+    			return child;
+    		}
+    	}
+    	return null;
+    }
+    
+    /**
+     * Retrieves the parent node, null for the root.
+     * 
+     * @return
+     */
+    public Node getParent() {
+    	return parent;
+    }
     
     /**
      * Retrieves the state of the node.
@@ -66,31 +209,79 @@ public class Node {
     }
     
     /**
-     * Returns a random child node to explore.
+     * Gets the number of simulations that went through this node
+     * 
      * @return
      */
-    public Node getRandomChildNode() {
-    	Random rand = new Random();
-    	int random = rand.nextInt(children.size());
-    	return children.get(random);
+    public int getVisitCount() {
+    	return visitCount;
     }
     
     /**
-     * Gets the win score of the node
+     * Gets the win score of the node, from the point of view of the player
+     * who made the move leading to it (a draw counts as half a win)
      * 
      * @return
      */
-    public int getWinScore() {
-    	return winScore;
+    public double getWinScore() {
+    	return halfWins / 2.0;
+    }
+    
+    /**
+     * Records the result of one simulation through this node.
+     * 
+     * @param winner - the winner of the simulated game
+     */
+    public void update(int winner) {
+    	VISITS.incrementAndGet(this);
+    	addResult(winner);
+    }
+    
+    /**
+     * Counts a visit that hasn't got a result yet, i.e. a loss until the
+     * simulation finishes. This steers the other threads descending the tree
+     * towards different lines.
+     */
+    public void addVirtualLoss() {
+    	VISITS.incrementAndGet(this);
     }
     
     /**
-     * Sets the win score of the node.
+     * Records the result of a simulation whose visit was already counted
+     * by addVirtualLoss, turning the virtual loss into the real result.
      * 
-     * @param score
+     * @param winner - the winner of the simulated game
+     */
+    public void updateAfterVirtualLoss(int winner) {
+    	addResult(winner);
+    }
+    
+    private void addResult(int winner) {
+    	if (latestMove == null) {
+    		return;
+    	}
+    	if (winner == latestMove.getPlayerID()) {
+    		HALF_WINS.addAndGet(this, 2);
+    	} else if (winner == Board.DRAW) {
+    		HALF_WINS.incrementAndGet(this);
+    	}
+    }
+    
+    /**
+     * Returns the child that was simulated the most, which is the most
+     * robust choice of move.
+     * 
+     * @return
      */
-    public void setWinScore(int score) {
-    	this.winScore = score;
+    public Node getChildWithMaxVisits() {
+    	Node best = null;
+    	for (int i = 0; i < getChildCount(); i++) {
+    		Node child = getChild(i);
+    		if (child != null && (best == null || child.getVisitCount() > best.getVisitCount())) {
+    			best = child;
+    		}
+    	}
+    	return best;
     }
     
     /**
@@ -0,0 +1,153 @@
+package student_player;
+
+import tablut.MoveBuffer;
+
+/**
+ * Search tree nodes kept in parallel primitive arrays instead of Node
+ * objects. A node is an index; its children are allocated as one block of
+ * consecutive indices. No board state is stored, the state of a node is
+ * found by replaying the moves from the root. Everything is allocated once,
+ * so a search creates no garbage, and reset() empties the store in constant
+ * time for the next move.
+ */
+public class NodeStore {
+
+	public static final int NONE = -1;
+
+	private final int[] visits;
+	private final int[] halfWins; // win score in half points, a draw is worth one
+	private final int[] firstChild; // NONE until the node is expanded
+	private final int[] childCount;
+	private final int[] move; // packed move leading to the node
+	private final int[] parent;
+	private int size;
+
+    /**
+     * Main constructor for NodeStore object
+     *
+     * @param capacity - maximum number of nodes
+     */
+    public NodeStore(int capacity) {
+    	visits = new int[capacity];
+    	halfWins = new int[capacity];
+    	firstChild = new int[capacity];
+    	childCount = new int[capacity];
+    	move = new int[capacity];
+    	parent = new int[capacity];
+    }
+
+    /**
+     * Removes every node.
+     */
+    public void reset() {
+    	size = 0;
+    }
+
+    /**
+     * Adds the root of a new tree.
+     *
+     * @return int - the root node
+     */
+    public int addRoot() {
+    	reset();
+    	return add(NONE, 0);
+    }
+
+    /**
+     * Adds the children of a node, one per move, unless the store is too
+     * full for all of them.
+     *
+     * @param node
+     * @param moves - packed moves
+     * @return boolean - whether the children were added
+     */
+    public boolean addChildren(int node, MoveBuffer moves) {
+    	if (size + moves.size() > capacity()) {
+    		return false;
+    	}
+    	firstChild[node] = size;
+    	childCount[node] = moves.size();
+    	for (int i = 0; i < moves.size(); i++) {
+    		add(node, moves.get(i));
+    	}
+    	return true;
+    }
+
+    private int add(int parentNode, int packedMove) {
+    	int node = size++;
+    	visits[node] = 0;
+    	halfWins[node] = 0;
+    	firstChild[node] = NONE;
+    	childCount[node] = 0;
+    	move[node] = packedMove;
+    	parent[node] = parentNode;
+    	return node;
+    }
+
+    /**
+     * Records the result of one simulation through a node.
+     *
+     * @param node
+     * @param resultHalfPoints - 2 for a win of the player who made the
+     *        node's move, 1 for a draw, 0 for a loss
+     */
+    public void update(int node, int resultHalfPoints) {
+    	visits[node]++;
+    	halfWins[node] += resultHalfPoints;
+    }
+
+    public boolean isExpanded(int node) {
+    	return firstChild[node] != NONE;
+    }
+
+    public int getFirstChild(int node) {
+    	return firstChild[node];
+    }
+
+    public int getChildCount(int node) {
+    	return childCount[node];
+    }
+
+    public int getMove(int node) {
+    	return move[node];
+    }
+
+    public int getParent(int node) {
+    	return parent[node];
+    }
+
+    public int getVisits(int node) {
+    	return visits[node];
+    }
+
+    public double getWinScore(int node) {
+    	return halfWins[node] / 2.0;
+    }
+
+    /**
+     * Number of nodes in use.
+     *
+     * @return int
+     */
+    public int size() {
+    	return size;
+    }
+
+    /**
+     * Maximum number of nodes.
+     *
+     * @return int
+     */
+    public int capacity() {
+    	return visits.length;
+    }
+
+    /**
+     * Bytes taken by the node arrays, which don't grow after construction.
+     *
+     * @return long
+     */
+    public long memoryBytes() {
+    	return 6L * Integer.BYTES * capacity();
+    }
+}
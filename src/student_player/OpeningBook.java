@@ -0,0 +1,153 @@
+package student_player;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+
+import tablut.Symmetry;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Best moves for the opening positions, precomputed by OpeningBookBuilder.
+ * Positions are identified up to symmetry: the key is the smallest of the
+ * eight symmetric Zobrist keys, and the move is stored as it would be played
+ * in that symmetric position.
+ *
+ * The file is a header (MAGIC, then the number of entries) followed by the
+ * entries sorted by key, each a long key and an int packed move, big-endian.
+ * It is memory mapped and searched in place by binary search, so opening it
+ * reads nothing and a lookup costs a few page reads.
+ */
+public class OpeningBook {
+
+	public static final int MAGIC = 0x54424B31; // "TBK1"
+
+	private static final int HEADER = 8;
+	private static final int ENTRY = 12;
+
+	public static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(HEADER).putInt(0, MAGIC));
+
+	private final ByteBuffer buffer;
+	private final int entries;
+
+    private OpeningBook(ByteBuffer buffer) {
+    	this.buffer = buffer;
+    	this.entries = buffer.getInt(4);
+    }
+
+    /**
+     * Maps a book file into memory.
+     *
+     * @param path
+     * @return OpeningBook
+     * @throws IOException - if the file can't be read or is not a book
+     */
+    public static OpeningBook open(String path) throws IOException {
+    	try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+    		ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    		if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC
+    				|| buffer.capacity() != HEADER + (long) ENTRY * buffer.getInt(4)) {
+    			throw new IOException("Not an opening book: " + path);
+    		}
+    		return new OpeningBook(buffer);
+    	}
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param moves - packed move in the canonical position, by its key
+     * @param path
+     * @throws IOException
+     */
+    public static void write(SortedMap<Long, Integer> moves, String path) throws IOException {
+    	try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+    		out.writeInt(MAGIC);
+    		out.writeInt(moves.size());
+    		for (Map.Entry<Long, Integer> entry : moves.entrySet()) {
+    			out.writeLong(entry.getKey());
+    			out.writeInt(entry.getValue());
+    		}
+    	}
+    }
+
+    /**
+     * Returns the book move for the given state, checked to be legal.
+     *
+     * @param state
+     * @return int - packed move, 0 if the position is not in the book
+     */
+    public int lookup(TablutBoardState state) {
+    	int symmetry = canonicalSymmetry(state);
+    	int move = find(state.hashKey(symmetry));
+    	if (move == 0) {
+    		return 0;
+    	}
+    	move = Symmetry.move(move, Symmetry.inverse(symmetry));
+    	if (TablutMove.player(move) != state.getTurnPlayer()
+    			|| !state.isLegalFast(TablutMove.from(move), TablutMove.to(move))) {
+    		return 0; // a different position with the same key
+    	}
+    	return move;
+    }
+
+    /**
+     * Number of positions in the book.
+     *
+     * @return int
+     */
+    public int size() {
+    	return entries;
+    }
+
+    /**
+     * The symmetry that takes a state to the representative of its class,
+     * the one with the smallest key.
+     *
+     * @param state
+     * @return int
+     */
+    public static int canonicalSymmetry(TablutBoardState state) {
+    	int best = Symmetry.IDENTITY;
+    	long bestKey = state.hashKey();
+    	for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+    		long key = state.hashKey(symmetry);
+    		if (key < bestKey) {
+    			best = symmetry;
+    			bestKey = key;
+    		}
+    	}
+    	return best;
+    }
+
+    /**
+     * Binary search of the entries for a key.
+     *
+     * @param key
+     * @return int - the stored move, 0 if the key is not there
+     */
+    private int find(long key) {
+    	int low = 0;
+    	int high = entries - 1;
+    	while (low <= high) {
+    		int middle = (low + high) >>> 1;
+    		long middleKey = buffer.getLong(HEADER + middle * ENTRY);
+    		if (middleKey < key) {
+    			low = middle + 1;
+    		} else if (middleKey > key) {
+    			high = middle - 1;
+    		} else {
+    			return buffer.getInt(HEADER + middle * ENTRY + 8);
+    		}
+    	}
+    	return 0;
+    }
+}
@@ -0,0 +1,102 @@
+package student_player;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import tablut.MoveBuffer;
+import tablut.Symmetry;
+import tablut.TablutBoardState;
+import tablut.TablutMove;
+
+/**
+ * Builds the opening book offline. For each colour it walks the opening:
+ * where that colour is to move the position is searched with the alpha-beta
+ * engine and only the move found is followed, where the opponent is to move
+ * every reply is followed. Positions equal up to symmetry are searched once.
+ *
+ * Usage: java -cp bin student_player.OpeningBookBuilder plies ms file
+ *
+ * Positions less than "plies" plies into the game are searched for "ms"
+ * milliseconds each with every available core, and the book is written to
+ * "file". The player reads data/opening_book.bin.
+ */
+public class OpeningBookBuilder {
+
+	private final int maxPly;
+	private final int searchMs;
+	private final LazySmpSearch search;
+	private final SortedMap<Long, Integer> book = new TreeMap<Long, Integer>();
+	private final Set<Long> visited = new HashSet<Long>();
+	private int player;
+
+    /**
+     * Main constructor for OpeningBookBuilder object
+     *
+     * @param maxPly - positions at this many plies or more are left out
+     * @param searchMs - search time per position
+     */
+    public OpeningBookBuilder(int maxPly, int searchMs) {
+    	this.maxPly = maxPly;
+    	this.searchMs = searchMs;
+    	this.search = new LazySmpSearch(Runtime.getRuntime().availableProcessors(), AlphaBetaSearch.DEFAULT_TABLE_MB);
+    }
+
+    /**
+     * Adds the openings of one colour to the book.
+     *
+     * @param player - colour the book moves are for
+     */
+    public void build(int player) {
+    	this.player = player;
+    	visited.clear();
+    	expand(new TablutBoardState(), 0);
+    }
+
+    public SortedMap<Long, Integer> getBook() {
+    	return book;
+    }
+
+    private void expand(TablutBoardState state, int ply) {
+    	if (ply >= maxPly || state.gameOver()) {
+    		return;
+    	}
+    	int symmetry = OpeningBook.canonicalSymmetry(state);
+    	long key = state.hashKey(symmetry);
+    	if (!visited.add(key)) {
+    		return;
+    	}
+    	if (state.getTurnPlayer() == player) {
+    		int move = ((TablutMove) search.findNextMove(state, System.currentTimeMillis() + searchMs)).toPacked();
+    		book.put(key, Symmetry.move(move, symmetry));
+    		System.out.println("ply " + ply + ": " + TablutMove.fromPacked(move).toPrettyString()
+    				+ " (depth " + search.getCompletedDepth() + ", " + book.size() + " positions)");
+    		long undo = state.applyMove(move);
+    		expand(state, ply + 1);
+    		state.undoMove(undo);
+    	} else {
+    		MoveBuffer moves = new MoveBuffer();
+    		state.getAllLegalMoves(moves);
+    		for (int i = 0; i < moves.size(); i++) {
+    			long undo = state.applyMove(moves.get(i));
+    			expand(state, ply + 1);
+    			state.undoMove(undo);
+    		}
+    	}
+    }
+
+    public static void main(String[] args) throws IOException {
+    	if (args.length != 3) {
+    		System.err.println("Usage: java -cp bin student_player.OpeningBookBuilder plies ms file");
+    		System.exit(1);
+    	}
+    	OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+    	builder.build(TablutBoardState.MUSCOVITE);
+    	builder.build(TablutBoardState.SWEDE);
+    	OpeningBook.write(builder.getBook(), args[2]);
+    	builder.search.shutdown();
+    	System.out.println("Wrote " + builder.getBook().size() + " positions to " + args[2]);
+    }
+}
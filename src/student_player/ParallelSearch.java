@@ -0,0 +1,109 @@
+package student_player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import boardgame.Move;
+
+/**
+ * Base class for the Monte Carlo tree searches that run on several threads.
+ * It owns one MonteCarloTreeSearch worker per thread, each with its own
+ * seeded random generator, and the SearchThreads the extra workers run on.
+ * Worker 0 always runs on the calling thread.
+ */
+public abstract class ParallelSearch {
+
+    protected final int threads;
+    protected final MonteCarloTreeSearch[] workers;
+    private final SearchThreads pool;
+    private int iterations;
+
+    /**
+     * Main constructor for ParallelSearch object
+     *
+     * @param threads - number of workers, including the calling thread
+     * @param seed - worker i is seeded with seed + i
+     * @param nodeLimit - node limit of each worker
+     */
+    protected ParallelSearch(int threads, long seed, int nodeLimit) {
+    	this.threads = Math.max(1, threads);
+    	this.workers = new MonteCarloTreeSearch[this.threads];
+    	for (int i = 0; i < this.threads; i++) {
+    		workers[i] = new MonteCarloTreeSearch(seed + i, nodeLimit);
+    	}
+    	this.pool = new SearchThreads("mcts-worker", workers);
+    }
+
+    /**
+     * Searches from the given root until the deadline and returns the move
+     * to play.
+     *
+     * @param root
+     * @param deadline - in System.currentTimeMillis() time
+     * @return Move
+     */
+    public Move findNextMove(Node root, long deadline) {
+    	return findNextMove(root, TimeManager.fixed(deadline));
+    }
+
+    /**
+     * Searches from the given root until the time manager says to stop and
+     * returns the move to play. Worker 0 asks the time manager, the others
+     * search until the hard deadline unless worker 0 stops them first.
+     *
+     * @param root
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    public abstract Move findNextMove(Node root, TimeManager clock);
+
+    /**
+     * Number of simulations run by all the workers during the last search.
+     *
+     * @return int
+     */
+    public int getIterations() {
+    	return iterations;
+    }
+
+    /**
+     * Makes a running search return soon, from any thread. Used to stop a
+     * search that pondered without a deadline.
+     */
+    public void abort() {
+    	pool.abort();
+    }
+
+    /**
+     * Stops the worker threads, they are started again on the next search.
+     */
+    public void shutdown() {
+    	pool.shutdown();
+    }
+
+    /**
+     * Runs the given search of every worker, worker 0 on the calling thread
+     * and the others on the pool, and waits for all of them. The others are
+     * aborted as soon as worker 0 is done, or has failed.
+     *
+     * @param searches - one per worker, each returning its simulation count
+     */
+    protected void runAll(List<Callable<Integer>> searches) {
+    	List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+    	pool.start();
+    	for (int i = 1; i < searches.size(); i++) {
+    		futures.add(pool.submit(searches.get(i)));
+    	}
+    	try {
+    		iterations = searches.get(0).call();
+    	} catch (Exception e) {
+    		throw new RuntimeException(e);
+    	} finally {
+    		for (int count : pool.finish(futures)) {
+    			iterations += count;
+    		}
+    	}
+    }
+}
@@ -0,0 +1,91 @@
+package student_player;
+
+import tablut.MoveBuffer;
+import tablut.TablutBoardState;
+
+/**
+ * Uniformly random playouts, the inner loop of the Monte Carlo searches.
+ * A kernel plays every game on its own scratch state with its own move
+ * buffer and xorshift random generator, so a playout allocates nothing.
+ * Moves are sampled with TablutBoardState.tryRandomMove, which costs about
+ * the same however many moves there are; the full move list is only
+ * generated when sampling keeps missing.
+ * It is not thread safe: every searching thread needs its own kernel.
+ */
+public class PlayoutKernel {
+
+	private static final int SAMPLE_TRIES = 16;
+
+    private final TablutBoardState scratch = new TablutBoardState();
+    private final MoveBuffer moves = new MoveBuffer();
+    private long seed;
+
+    /**
+     * Main constructor for PlayoutKernel object
+     *
+     * @param seed
+     */
+    public PlayoutKernel(long seed) {
+    	// xorshift gets stuck on zero
+    	this.seed = (seed == 0) ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    /**
+     * Plays random moves from the given state until the game ends.
+     *
+     * @param start - not modified
+     * @return long - the winner and the number of plies played, read them
+     *         with winner() and plies()
+     */
+    public long play(TablutBoardState start) {
+    	scratch.copyFrom(start);
+    	long plies = 0;
+    	while (!scratch.gameOver()) {
+    		scratch.applyMove(randomMove());
+    		plies++;
+    	}
+    	return (plies << 32) | (scratch.getWinner() & 0xFFFFFFFFL);
+    }
+
+    public static int winner(long result) {
+    	return (int) result;
+    }
+
+    public static int plies(long result) {
+    	return (int) (result >>> 32);
+    }
+
+    private int randomMove() {
+    	for (int i = 0; i < SAMPLE_TRIES; i++) {
+    		int move = scratch.tryRandomMove(nextBits());
+    		if (move != 0) {
+    			return move;
+    		}
+    	}
+    	scratch.getAllLegalMoves(moves);
+    	return moves.get(nextInt(moves.size()));
+    }
+
+    /**
+     * Random int in [0, bound), from a xorshift64* generator scaled by a
+     * multiplication instead of a division.
+     *
+     * @param bound
+     * @return int
+     */
+    public int nextInt(int bound) {
+    	return (int) (((nextBits() & 0xFFFFFFFFL) * bound) >>> 32);
+    }
+
+    /**
+     * 32 random bits from a xorshift64* generator.
+     *
+     * @return int
+     */
+    private int nextBits() {
+    	seed ^= seed >>> 12;
+    	seed ^= seed << 25;
+    	seed ^= seed >>> 27;
+    	return (int) ((seed * 0x2545F4914F6CDD1DL) >>> 32);
+    }
+}
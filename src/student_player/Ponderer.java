@@ -0,0 +1,100 @@
+package student_player;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a search on a background thread while the opponent thinks, so that
+ * the time the client spends waiting for the opponent's move is not wasted.
+ * The search runs until it is stopped; whatever it stored (the MCTS tree,
+ * the transposition table) is then reused by the search of our next move.
+ */
+public class Ponderer {
+
+	// how long stop() waits for the search to notice it was aborted before aborting it again
+	private static final int STOP_POLL_MS = 5;
+
+	private ExecutorService executor;
+	private Future<?> pondering;
+	private Runnable abort;
+
+    /**
+     * Starts pondering, stopping the previous search first if it is still
+     * running.
+     *
+     * @param search - runs until aborted
+     * @param abort - makes the search return soon, from any thread
+     */
+    public void start(Runnable search, Runnable abort) {
+    	stop();
+    	this.abort = abort;
+    	pondering = executor().submit(search);
+    }
+
+    /**
+     * Stops the running search, if any, and waits until it has returned, so
+     * that what it was searching can be used again. The search is aborted
+     * again until it returns, in case it only started after the first abort
+     * and cleared it. A search that failed or was cancelled is only logged:
+     * pondering is optional, and the next move is searched all the same.
+     */
+    public void stop() {
+    	if (pondering == null) {
+    		return;
+    	}
+    	try {
+    		while (true) {
+    			abort.run();
+    			try {
+    				pondering.get(STOP_POLL_MS, TimeUnit.MILLISECONDS);
+    				break;
+    			} catch (TimeoutException e) {
+    				// not done yet, abort again
+    			}
+    		}
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    	} catch (ExecutionException e) {
+    		System.err.println("Pondering failed, discarding it: " + e.getCause());
+    		e.getCause().printStackTrace();
+    	} catch (CancellationException e) {
+    		System.err.println("Pondering was cancelled, discarding it");
+    	} finally {
+    		pondering = null;
+    		abort = null;
+    	}
+    }
+
+    /**
+     * Stops pondering and the background thread, which is started again by
+     * the next start().
+     */
+    public void shutdown() {
+    	stop();
+    	if (executor != null) {
+    		executor.shutdownNow();
+    		executor = null;
+    	}
+    }
+
+    /**
+     * Returns the thread the searches run on, creating it if needed.
+     *
+     * @return ExecutorService
+     */
+    private ExecutorService executor() {
+    	if (executor == null) {
+    		executor = Executors.newSingleThreadExecutor(runnable -> {
+    			Thread thread = new Thread(runnable, "ponder");
+    			thread.setDaemon(true);
+    			return thread;
+    		});
+    	}
+    	return executor;
+    }
+}
@@ -0,0 +1,79 @@
+package student_player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import boardgame.Move;
+import tablut.TablutBoardState;
+
+/**
+ * Root parallel Monte Carlo tree search. Every worker grows its own tree
+ * from the same position, and the statistics of the root children are
+ * summed once the deadline arrives. Worker 0 searches the given root, so a
+ * tree kept from previous turns keeps growing; the other trees are dropped.
+ */
+public class RootParallelSearch extends ParallelSearch {
+
+    /**
+     * Main constructor for RootParallelSearch object
+     *
+     * @param threads - number of workers, including the calling thread
+     * @param seed - worker i is seeded with seed + i
+     */
+    public RootParallelSearch(int threads, long seed) {
+    	// the workers share the memory budget of a single search
+    	super(threads, seed, MonteCarloTreeSearch.DEFAULT_NODE_LIMIT / Math.max(1, threads));
+    }
+
+    /**
+     * Searches from the given root with every worker until the time manager
+     * says to stop and returns the move with the most merged visits, ties
+     * going to the most merged wins. Worker 0's tree stands in for the merged
+     * statistics when deciding whether the best move has settled.
+     *
+     * @param root
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    @Override
+    public Move findNextMove(Node root, TimeManager clock) {
+    	root.createChildNodes();
+    	Node[] roots = new Node[threads];
+    	List<Callable<Integer>> searches = new ArrayList<Callable<Integer>>();
+    	for (int i = 0; i < threads; i++) {
+    		final MonteCarloTreeSearch worker = workers[i];
+    		final Node workerRoot = (i == 0) ? root
+    				: new Node(null, (TablutBoardState) root.getState().clone(), null);
+    		roots[i] = workerRoot;
+    		if (i == 0) {
+    			searches.add(() -> worker.search(workerRoot, clock));
+    		} else {
+    			searches.add(() -> worker.search(workerRoot, clock.getHardDeadline()));
+    		}
+    	}
+    	runAll(searches);
+
+    	// the roots may have expanded their moves in different orders (a reused
+    	// root was expanded as an inner node), so children are matched by move
+    	List<Node> children = root.getChildren();
+    	int best = 0;
+    	long bestVisits = -1;
+    	double bestWins = -1;
+    	for (int i = 0; i < children.size(); i++) {
+    		long visits = 0;
+    		double wins = 0;
+    		for (Node r : roots) {
+    			Node child = (r == root) ? children.get(i) : r.findChild(children.get(i).getLatestMove());
+    			visits += child.getVisitCount();
+    			wins += child.getWinScore();
+    		}
+    		if (visits > bestVisits || (visits == bestVisits && wins > bestWins)) {
+    			best = i;
+    			bestVisits = visits;
+    			bestWins = wins;
+    		}
+    	}
+    	return children.get(best).getLatestMove();
+    }
+}
@@ -0,0 +1,139 @@
+package student_player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The threads of a search that runs one copy of itself per thread, shared
+ * by ParallelSearch and LazySmpSearch. Search 0 is the main one and runs
+ * on the calling thread; the others are helpers, run on a pool of daemon
+ * threads that is created on first use. The abort flags of all the copies
+ * are handled here too.
+ */
+public class SearchThreads {
+
+    private final String name;
+    private final Abortable[] searches;
+    private ExecutorService executor;
+
+    /**
+     * Main constructor for SearchThreads object
+     *
+     * @param name - name of the helper threads
+     * @param searches - one per thread, the main search first
+     */
+    public SearchThreads(String name, Abortable[] searches) {
+    	this.name = name;
+    	this.searches = searches;
+    }
+
+    /**
+     * Clears the abort flag of every search, before a new search starts.
+     */
+    public void start() {
+    	for (Abortable search : searches) {
+    		search.setAborted(false);
+    	}
+    }
+
+    /**
+     * Runs a helper search on the pool.
+     *
+     * @param search
+     * @return Future
+     */
+    public <T> Future<T> submit(Callable<T> search) {
+    	return executor().submit(search);
+    }
+
+    /**
+     * Makes the helpers return soon, once the main search is done.
+     */
+    public void abortHelpers() {
+    	for (int i = 1; i < searches.length; i++) {
+    		searches[i].setAborted(true);
+    	}
+    }
+
+    /**
+     * Aborts the helpers and waits until every one of them has returned, even
+     * if the calling thread is interrupted meanwhile, so that none is left
+     * running. Meant for a finally block around the main search, so that the
+     * helpers are stopped when it fails too: while pondering they have no
+     * deadline of their own.
+     *
+     * @param futures - of the helpers, from submit
+     * @return List - their results, in order
+     */
+    public <T> List<T> finish(List<Future<T>> futures) {
+    	abortHelpers();
+    	List<T> results = new ArrayList<T>(futures.size());
+    	RuntimeException failure = null;
+    	boolean interrupted = false;
+    	for (Future<T> future : futures) {
+    		while (true) {
+    			try {
+    				results.add(future.get());
+    				break;
+    			} catch (InterruptedException e) {
+    				interrupted = true;
+    			} catch (ExecutionException e) {
+    				failure = (failure == null) ? new RuntimeException(e.getCause()) : failure;
+    				break;
+    			} catch (CancellationException e) {
+    				failure = (failure == null) ? e : failure;
+    				break;
+    			}
+    		}
+    	}
+    	if (interrupted) {
+    		Thread.currentThread().interrupt();
+    	}
+    	if (failure != null) {
+    		throw failure;
+    	}
+    	return results;
+    }
+
+    /**
+     * Makes a running search return soon, from any thread. Used to stop a
+     * search that pondered without a deadline.
+     */
+    public void abort() {
+    	for (Abortable search : searches) {
+    		search.setAborted(true);
+    	}
+    }
+
+    /**
+     * Stops the helper threads, they are started again on the next search.
+     */
+    public void shutdown() {
+    	if (executor != null) {
+    		executor.shutdownNow();
+    		executor = null;
+    	}
+    }
+
+    /**
+     * Returns the pool the helpers run on, creating it if needed.
+     *
+     * @return ExecutorService
+     */
+    private ExecutorService executor() {
+    	if (executor == null) {
+    		executor = Executors.newFixedThreadPool(Math.max(1, searches.length - 1), runnable -> {
+    			Thread thread = new Thread(runnable, name);
+    			thread.setDaemon(true);
+    			return thread;
+    		});
+    	}
+    	return executor;
+    }
+}
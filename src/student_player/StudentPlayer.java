@@ -1,14 +1,14 @@
 package student_player;
 
-import java.lang.Thread.State;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
 
+import boardgame.BoardState;
 import boardgame.Move;
 import coordinates.Coord;
 import coordinates.Coordinates;
+import tablut.MoveBuffer;
 import tablut.TablutBoardState;
 import tablut.TablutMove;
 import tablut.TablutPlayer;
@@ -16,13 +16,31 @@ import tablut.TablutPlayer;
 /** A player file submitted by a student. */
 public class StudentPlayer extends TablutPlayer {
 	
-	private int level;
 	private int opponent;
 	private int player;
-	private final int NUM_PIECES_WEIGHTING = 2;
-	private final int KING_DISTANCE_WEIGHTING = 50;
-	private final int PIECES_TO_KING_WEIGHTING = 1;
-	private final int MONTE_CARLO_LIMIT = 1500;
+	// deadlines of every move, from the server timeouts less a measured margin
+	private final TimeManager clock = new TimeManager();
+	// search engine: -Dstudent.engine=alphabeta plays the alpha-beta search instead of
+	// mcts, -Dstudent.engine=arena the single threaded mcts over a primitive node store
+	private final String ENGINE = System.getProperty("student.engine", "mcts");
+	private ArenaMonteCarloTreeSearch arena; // created on first use, the store is large
+	// transposition table size in MB, override with -Dstudent.hash=MB
+	private final int TABLE_MB = Integer.getInteger("student.hash", AlphaBetaSearch.DEFAULT_TABLE_MB);
+	private LazySmpSearch alphaBeta; // created on first use, the table is large
+	// search threads, override with -Dstudent.threads=N
+	private final int THREADS = Integer.getInteger("student.threads", Runtime.getRuntime().availableProcessors());
+	// parallel search, -Dstudent.parallel=tree shares one tree between the threads
+	private final ParallelSearch mcts = "tree".equals(System.getProperty("student.parallel"))
+			? new TreeParallelSearch(THREADS, System.nanoTime())
+			: new RootParallelSearch(THREADS, System.nanoTime());
+	private Tree tree = new Tree(null); // kept between turns, follows the moves played
+	// -Dstudent.ponder=true keeps searching on the opponent's time (not with the arena engine,
+	// whose store doesn't outlive a search)
+	private final boolean PONDER = Boolean.getBoolean("student.ponder") && !ENGINE.equals("arena");
+	private final Ponderer ponderer = new Ponderer();
+	// opening book built by OpeningBookBuilder, override with -Dstudent.book=path
+	private final String BOOK_PATH = System.getProperty("student.book", "data/opening_book.bin");
+	private OpeningBook book; // mapped on first use
 
     /**
      * You must modify this constructor to return your student number. This is
@@ -39,7 +57,19 @@ public class StudentPlayer extends TablutPlayer {
      * make decisions.
      */
     public Move chooseMove(TablutBoardState boardState) {
-    	
+    	clock.startMove(boardState);
+    	Move move = findMove(boardState);
+    	clock.endMove();
+    	return move;
+    }
+    
+    /**
+     * Picks the move to play within the deadlines of the time manager
+     * 
+     * @param boardState
+     * @return Move
+     */
+    private Move findMove(TablutBoardState boardState) {
     	// set player and opponent ids
     	if (player_id == TablutBoardState.SWEDE) {
     		player = TablutBoardState.SWEDE;
@@ -49,8 +79,25 @@ public class StudentPlayer extends TablutPlayer {
     		opponent = TablutBoardState.SWEDE;
     	}
     	
-    	// create the root node and retrieve its children
-    	Node root = new Node(null, boardState, null);
+    	// play from the opening book while the game is still in it
+    	int bookMove = openingBook().lookup(boardState);
+    	if (bookMove != 0) {
+    		return TablutMove.fromPacked(bookMove);
+    	}
+    	
+    	// the alpha-beta search finds wins and captures itself
+    	if (ENGINE.equals("alphabeta")) {
+    		return alphaBeta().findNextMove(boardState, clock);
+    	}
+    	
+    	// reuse the search tree from the previous turns if it followed the game
+    	// here, otherwise create the root node; then retrieve its children
+    	Node root = tree.getRoot();
+    	if (root == null || !root.getState().equals(boardState)
+    			|| root.getState().getTurnNumber() != boardState.getTurnNumber()) {
+    		root = new Node(null, boardState, null);
+    		tree = new Tree(root);
+    	}
     	root.createChildNodes();
     	List<Node> children = root.getChildren(); 
     	
@@ -74,117 +121,103 @@ public class StudentPlayer extends TablutPlayer {
     		return obviousMove;
     	}
     	
-    	// if obvious/greedy moves don't exist then run monte carlo simulation
-    	long startTime = System.currentTimeMillis();
-    	while ( (System.currentTimeMillis()-startTime) < MONTE_CARLO_LIMIT) {
-    		for (Node child : children) {
-    			Node promisingNode = selectPromisingNode(child);
-    			TablutBoardState playoutResult = simulateRandomPlayout(promisingNode.getState());
-    			if (playoutResult.getWinner() == player) {
-    				child.setWinScore(child.getWinScore()+1);
-    			}
+    	// if obvious/greedy moves don't exist then run monte carlo tree search on
+    	// every thread for the rest of the time limit and play its most visited move
+    	if (ENGINE.equals("arena")) {
+    		if (arena == null) {
+    			arena = new ArenaMonteCarloTreeSearch(ArenaMonteCarloTreeSearch.DEFAULT_CAPACITY, System.nanoTime());
     		}
-        }
-    	
-        // return highest scoring move from monte carlo simulation
-        return getHighestScore(children).getLatestMove();
+    		return arena.findNextMove(boardState, clock);
+    	}
+    	return mcts.findNextMove(root, clock);
     }
     
     /**
-     * Retrieve the highest scoring Node out of all the children in random playout
-     * 
-     * @param children
-     * @return Node
+     * Follow every move played, ours and the opponent's, down the search tree
+     * so that its statistics are reused on our next turn. Our own move coming
+     * back from the server also times the round trip for the time manager,
+     * and starts pondering until the opponent's move arrives.
      */
-    private Node getHighestScore(List<Node> children) {
-    	Node highestScore = children.get(0);
-    	for (Node child: children) {
-    		if (child.getWinScore() > highestScore.getWinScore()) {
-    			highestScore = child;
+    @Override
+    public void movePlayed(BoardState boardState, Move move) {
+    	if (move.getPlayerID() == player_id) {
+    		clock.moveConfirmed();
+    		tree.advance(move);
+    		if (PONDER && !boardState.gameOver()) {
+    			startPondering((TablutBoardState) boardState);
     		}
+    	} else {
+    		ponderer.stop();
+    		tree.advance(move);
     	}
-    	return highestScore;
     }
     
     /**
-     * Select the most promising child node based on heuristic
+     * Searches the position the opponent has to move from in the background.
+     * Monte Carlo grows the tree below it, so the statistics of whatever
+     * reply comes are kept; alpha-beta fills the transposition table with
+     * the lines after every likely reply.
      * 
-     * @param rootNode
-     * @return Node
+     * @param boardState - after our move
      */
-    private Node selectPromisingNode(Node rootNode) {
-    	Node node = rootNode;
-    	node.createChildNodes();
-    	int bestHeuristic = -1;
-    	Node bestNode = null;
-    	for (Node child: rootNode.getChildren()) {
-    		int heuristic = calculateHeuristic(child);
-    		if (heuristic > bestHeuristic) {
-    			bestNode = child;
-    		}
+    private void startPondering(TablutBoardState boardState) {
+    	TablutBoardState state = (TablutBoardState) boardState.clone();
+    	TimeManager unlimited = TimeManager.fixed(Long.MAX_VALUE);
+    	if (ENGINE.equals("alphabeta")) {
+    		// our move may have come from the book, before any search was created
+    		LazySmpSearch search = alphaBeta();
+    		ponderer.start(() -> search.findNextMove(state, unlimited), search::abort);
+    		return;
+    	}
+    	Node root = tree.getRoot();
+    	if (root == null || !root.getState().equals(state)) {
+    		root = new Node(null, state, null);
+    		tree = new Tree(root);
     	}
-    	return bestNode;
+    	final Node ponderRoot = root;
+    	ponderer.start(() -> mcts.findNextMove(ponderRoot, unlimited), mcts::abort);
     }
     
     /**
-     * Calculate heuristic based on state of the board
-     * 
-     * @param child
-     * @return int - heuristic calculation
+     * Release the search tree and threads once the game is over.
      */
-    private int calculateHeuristic(Node child) {
-    	TablutBoardState state = child.getState();
-    	// trivial heuristic
-    	if (state.gameOver()) {
-    		if (state.getWinner() == player) {
-    			return 10000;
-    		} 
-    		if (state.getWinner() == opponent) {
-    			return 0;
-    		}
+    @Override
+    public void gameOver(String msg, BoardState boardState) {
+    	ponderer.shutdown();
+    	tree = new Tree(null);
+    	mcts.shutdown();
+    	if (alphaBeta != null) {
+    		alphaBeta.shutdown();
     	}
-    	// start with initial score of 1000
-    	int score = 1000;
-    	// get the king position
-    	Coord king = state.getKingPosition(); 
-    	// gain points for remaining pieces, lose points for opponents remaining pieces
-    	HashSet<Coord> playerPieces = state.getPlayerPieceCoordinates();
-    	HashSet<Coord> opponentPieces = state.getOpponentPieceCoordinates();
-    	score += NUM_PIECES_WEIGHTING * playerPieces.size();
-    	score -= NUM_PIECES_WEIGHTING * opponentPieces.size();
-    	// gain points for pieces being close to king, lose points for opponent being close to king
-    	for (Coord coord: state.getPlayerPieceCoordinates()) {
-			score -= PIECES_TO_KING_WEIGHTING * coord.distance(king);
-		}
-		for (Coord coord: state.getOpponentPieceCoordinates()) {
-			score += PIECES_TO_KING_WEIGHTING * coord.distance(king);
-		}
-		// gain/lose points for king being close to corner
-    	if (player == TablutBoardState.SWEDE) {
-    		score -= KING_DISTANCE_WEIGHTING * Coordinates.distanceToClosestCorner(king);
-
-    	} else {
-    		score += KING_DISTANCE_WEIGHTING * Coordinates.distanceToClosestCorner(king);
+    }
+    
+    /**
+     * Returns the alpha-beta search, creating it on the first call.
+     * 
+     * @return LazySmpSearch
+     */
+    private LazySmpSearch alphaBeta() {
+    	if (alphaBeta == null) {
+    		alphaBeta = new LazySmpSearch(THREADS, TABLE_MB);
     	}
-    	return score;
+    	return alphaBeta;
     }
     
     /**
-     * Simulate a random play out until game ends
-     * @param state
-     * @return TablutBoardState - ending state of the game
+     * Returns the opening book, mapping it on the first call. Playing without
+     * one is fine, so a missing or unreadable file gives the empty book.
+     * 
+     * @return OpeningBook
      */
-    private TablutBoardState simulateRandomPlayout(TablutBoardState state) {
-    	TablutBoardState tempState = (TablutBoardState) state.clone();
-        if (tempState.gameOver()) {
-            return state;
-        }
-        while (!tempState.gameOver()) {
-        	Random rand = new Random();
-        	List<TablutMove> moves = tempState.getAllLegalMoves();
-        	tempState.processMove(moves.get(rand.nextInt(moves.size())));
-        }
-        return tempState;
+    private OpeningBook openingBook() {
+    	if (book == null) {
+    		try {
+    			book = OpeningBook.open(BOOK_PATH);
+    		} catch (IOException e) {
+    			book = OpeningBook.EMPTY;
+    		}
+    	}
+    	return book;
     }
     
     /**
@@ -236,9 +269,11 @@ public class StudentPlayer extends TablutPlayer {
         for (TablutMove move : parent.getState().getLegalMovesForPosition(king)) {
             int moveDistance = Coordinates.distanceToClosestCorner(move.getEndPosition());
             if (moveDistance < minDistance) {
-            	TablutBoardState childState = (TablutBoardState) parent.getState().clone();
-                childState.processMove(move);
-            	if (isMoveSafe(childState)) {
+            	TablutBoardState state = parent.getState();
+            	long undo = state.applyMove(move);
+            	boolean safe = isMoveSafe(state);
+            	state.undoMove(undo);
+            	if (safe) {
             		minDistance = moveDistance;
                     bestMove = move;
             	}
@@ -255,10 +290,12 @@ public class StudentPlayer extends TablutPlayer {
      */
     private boolean isMoveSafe(TablutBoardState state) {
     	int originalNumPieces = state.getNumberPlayerPieces(player);
-    	for (TablutMove move: state.getAllLegalMoves()) {
-    		TablutBoardState childState = (TablutBoardState) state.clone();
-            childState.processMove(move);
-    		int newNumPieces = childState.getNumberPlayerPieces(player);
+    	MoveBuffer moves = new MoveBuffer();
+    	state.getAllLegalMoves(moves);
+    	for (int i = 0; i < moves.size(); i++) {
+    		long undo = state.applyMove(moves.get(i));
+    		int newNumPieces = state.getNumberPlayerPieces(player);
+    		state.undoMove(undo);
     		if (originalNumPieces-newNumPieces != 0) {
     			return false;
     		}
@@ -0,0 +1,162 @@
+package student_player;
+
+import boardgame.Server;
+import tablut.TablutBoardState;
+
+/**
+ * Decides how long each move is searched. Every move gets a hard deadline,
+ * the server timeout less a safety margin, and a soft deadline halfway
+ * there. Past the soft deadline a search stops as soon as its best move has
+ * not changed for a while; a search whose best move keeps changing goes on
+ * to the hard deadline.
+ *
+ * The safety margin is measured rather than guessed: it covers the longest
+ * time a search has taken to return after its hard deadline and the longest
+ * round trip from returning a move to the server announcing it, plus a fixed
+ * allowance for a garbage collection pause. Until they are measured both
+ * take a cautious default.
+ *
+ * The server gives each move its own timeout, so time a move doesn't use is
+ * lost rather than saved for later turns, and the budget doesn't depend on
+ * how many turns are left.
+ */
+public class TimeManager {
+
+	// allowance for a garbage collection pause or the thread being descheduled
+	private static final int GC_ALLOWANCE = 200;
+	// assumed until measured
+	private static final int DEFAULT_OVERRUN = 100;
+	private static final int DEFAULT_ROUND_TRIP = 250;
+	// the server asks for the first move with this turn number (see Server.requestMove)
+	private static final int FIRST_MOVE_TURN = 0;
+
+	private final int moveTimeout;
+	private final int firstMoveTimeout;
+	private long overrun = DEFAULT_OVERRUN;
+	private long roundTrip = DEFAULT_ROUND_TRIP;
+	private boolean overrunMeasured;
+	private boolean roundTripMeasured;
+
+	private long softDeadline;
+	private long hardDeadline;
+	private long settleTime;
+	private long returnTime;
+	private int lastBestMove;
+	private long lastChange;
+
+    /**
+     * Main constructor for TimeManager object, with the server's default
+     * timeouts
+     */
+    public TimeManager() {
+    	this(Server.DEFAULT_TIMEOUT, Server.FIRST_MOVE_TIMEOUT);
+    }
+
+    /**
+     * Constructor for a server started with other timeouts
+     *
+     * @param moveTimeout - in ms
+     * @param firstMoveTimeout - in ms
+     */
+    public TimeManager(int moveTimeout, int firstMoveTimeout) {
+    	this.moveTimeout = moveTimeout;
+    	this.firstMoveTimeout = firstMoveTimeout;
+    }
+
+    /**
+     * A manager whose soft and hard deadlines are both the given one, for
+     * searches run with a fixed deadline.
+     *
+     * @param deadline - in System.currentTimeMillis() time
+     * @return TimeManager
+     */
+    public static TimeManager fixed(long deadline) {
+    	TimeManager clock = new TimeManager();
+    	clock.softDeadline = deadline;
+    	clock.hardDeadline = deadline;
+    	return clock;
+    }
+
+    /**
+     * Sets the deadlines of the move about to be searched. Called as soon as
+     * the server asks for a move.
+     *
+     * @param boardState
+     */
+    public void startMove(TablutBoardState boardState) {
+    	long startTime = System.currentTimeMillis();
+    	int timeout = (boardState.getTurnNumber() == FIRST_MOVE_TURN) ? firstMoveTimeout : moveTimeout;
+    	long budget = Math.max(timeout - getSafetyMargin(), timeout / 4);
+    	hardDeadline = startTime + budget;
+    	softDeadline = startTime + budget / 2;
+    	settleTime = budget / 4;
+    	lastBestMove = 0;
+    	lastChange = startTime;
+    }
+
+    /**
+     * Records that the move was returned, to measure how far past its hard
+     * deadline the search ran.
+     */
+    public void endMove() {
+    	returnTime = System.currentTimeMillis();
+    	long late = returnTime - hardDeadline;
+    	overrun = overrunMeasured ? Math.max(overrun, late) : Math.max(0, late);
+    	overrunMeasured = true;
+    }
+
+    /**
+     * Records that the server announced the move we returned last, to
+     * measure the round trip.
+     */
+    public void moveConfirmed() {
+    	if (returnTime == 0) {
+    		return;
+    	}
+    	long trip = System.currentTimeMillis() - returnTime;
+    	roundTrip = roundTripMeasured ? Math.max(roundTrip, trip) : trip;
+    	roundTripMeasured = true;
+    	returnTime = 0;
+    }
+
+    /**
+     * Whether a search should stop now, given its current best move. It is
+     * called regularly by one thread of the search, which keeps calling it
+     * from the start of the move so that it knows how long the best move has
+     * held. Always true past the hard deadline, never before the soft one.
+     *
+     * @param bestMove - packed, 0 if there is none yet
+     * @return boolean
+     */
+    public boolean shouldStop(int bestMove) {
+    	long now = System.currentTimeMillis();
+    	if (bestMove != lastBestMove) {
+    		lastBestMove = bestMove;
+    		lastChange = now;
+    	}
+    	if (now >= hardDeadline) {
+    		return true;
+    	}
+    	if (now < softDeadline) {
+    		return false;
+    	}
+    	return now - lastChange >= settleTime;
+    }
+
+    public long getSoftDeadline() {
+    	return softDeadline;
+    }
+
+    public long getHardDeadline() {
+    	return hardDeadline;
+    }
+
+    /**
+     * Time kept back from the server timeout.
+     *
+     * @return long - in ms
+     */
+    public long getSafetyMargin() {
+    	return GC_ALLOWANCE + overrun + roundTrip;
+    }
+}
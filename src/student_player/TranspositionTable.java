@@ -0,0 +1,106 @@
+package student_player;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size transposition table indexed by the Zobrist key of a board
+ * state. Every entry is two longs: the data (best move, depth, bound and
+ * score) and the key XORed with the data. The table takes no locks, so
+ * several searching threads can share it; an entry torn by two threads
+ * writing at once no longer XORs back to its key and is just a miss.
+ */
+public class TranspositionTable {
+
+	// kind of score stored in an entry
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2; // the search failed high, score >= stored
+	public static final int UPPER_BOUND = 3; // the search failed low, score <= stored
+
+	// a probe that missed
+	public static final long NONE = 0;
+
+	private static final int MOVE_BITS = 16;
+	private static final int DEPTH_SHIFT = 16;
+	private static final int BOUND_SHIFT = 24;
+	private static final int SCORE_SHIFT = 32;
+
+	private final long[] table;
+	private final int mask;
+
+    /**
+     * Main constructor for TranspositionTable object, with the largest
+     * power of two number of entries that fits in the given size
+     *
+     * @param megabytes
+     */
+    public TranspositionTable(int megabytes) {
+    	long entries = Math.max(1, (long) megabytes * 1024 * 1024 / 16);
+    	int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+    	this.table = new long[2 * size];
+    	this.mask = size - 1;
+    }
+
+    /**
+     * Looks up the given position.
+     *
+     * @param key - Zobrist key of the position
+     * @return long - the entry's data, or NONE if the position isn't stored
+     */
+    public long probe(long key) {
+    	int index = 2 * ((int) key & mask);
+    	long data = table[index + 1];
+    	if ((table[index] ^ data) != key || data == NONE) {
+    		return NONE;
+    	}
+    	return data;
+    }
+
+    /**
+     * Stores the result of a search, replacing whatever was in its slot.
+     *
+     * @param key - Zobrist key of the position
+     * @param move - packed best move, 0 if none
+     * @param depth
+     * @param bound - EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param score
+     */
+    public void store(long key, int move, int depth, int bound, int score) {
+    	int index = 2 * ((int) key & mask);
+    	long data = (move & ((1L << MOVE_BITS) - 1)) | ((long) depth << DEPTH_SHIFT)
+    			| ((long) bound << BOUND_SHIFT) | ((long) score << SCORE_SHIFT);
+    	table[index] = key ^ data;
+    	table[index + 1] = data;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+    	Arrays.fill(table, 0);
+    }
+
+    /**
+     * Number of entries in the table.
+     *
+     * @return int
+     */
+    public int size() {
+    	return mask + 1;
+    }
+
+    public static int move(long data) {
+    	return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int depth(long data) {
+    	return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+    	return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public static int score(long data) {
+    	return (int) (data >> SCORE_SHIFT);
+    }
+}
@@ -1,5 +1,7 @@
 package student_player;
 
+import boardgame.Move;
+
 /**
  * Class for representing a search tree.
  * 
@@ -27,4 +29,21 @@ public class Tree {
     public Node getRoot() {
     	return root;
     }
+    
+    /**
+     * Moves the root down to the child reached by the given move, keeping
+     * its statistics, and drops everything else so it can be garbage
+     * collected. The root becomes null if that child was never created.
+     * 
+     * @param move
+     */
+    public void advance(Move move) {
+    	if (root == null) {
+    		return;
+    	}
+    	root = root.findChild(move);
+    	if (root != null) {
+    		root.parent = null;
+    	}
+    }
 }
\ No newline at end of file
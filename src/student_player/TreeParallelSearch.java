@@ -0,0 +1,50 @@
+package student_player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import boardgame.Move;
+
+/**
+ * Tree parallel Monte Carlo tree search. All the workers descend one shared
+ * tree at the same time; virtual losses spread them over different lines,
+ * node statistics are updated atomically and new children are published
+ * lock-free, so the threads never wait on each other.
+ */
+public class TreeParallelSearch extends ParallelSearch {
+
+    /**
+     * Main constructor for TreeParallelSearch object
+     *
+     * @param threads - number of workers, including the calling thread
+     * @param seed - worker i is seeded with seed + i
+     */
+    public TreeParallelSearch(int threads, long seed) {
+    	super(threads, seed, MonteCarloTreeSearch.DEFAULT_NODE_LIMIT);
+    }
+
+    /**
+     * Searches the tree below the given root with every worker until the
+     * time manager says to stop and returns the move of the most visited
+     * child.
+     *
+     * @param root
+     * @param clock - deadlines of the current move
+     * @return Move
+     */
+    @Override
+    public Move findNextMove(Node root, TimeManager clock) {
+    	root.createChildNodes();
+    	AtomicInteger nodeCount = new AtomicInteger();
+    	List<Callable<Integer>> searches = new ArrayList<Callable<Integer>>();
+    	searches.add(() -> workers[0].searchShared(root, clock, nodeCount));
+    	for (int i = 1; i < threads; i++) {
+    		final MonteCarloTreeSearch worker = workers[i];
+    		searches.add(() -> worker.searchShared(root, clock.getHardDeadline(), nodeCount));
+    	}
+    	runAll(searches);
+    	return root.getChildWithMaxVisits().getLatestMove();
+    }
+}
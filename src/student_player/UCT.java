@@ -0,0 +1,49 @@
+package student_player;
+
+/**
+ * Upper Confidence bounds applied to Trees, used to pick which child of a
+ * node the search should descend into next.
+ */
+public class UCT {
+	
+	// exploration constant, sqrt(2) is the textbook choice for results in [0, 1]
+	public static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * Calculates the UCT value of a node. Unvisited nodes come first.
+     * 
+     * @param parentVisits
+     * @param winScore
+     * @param visits
+     * @return double
+     */
+    public static double uctValue(int parentVisits, double winScore, int visits) {
+    	if (visits == 0) {
+    		return Double.MAX_VALUE;
+    	}
+    	return winScore / visits + EXPLORATION * Math.sqrt(Math.log(parentVisits) / visits);
+    }
+    
+    /**
+     * Finds the child of a node with the highest UCT value
+     * 
+     * @param node
+     * @return Node
+     */
+    public static Node findBestNodeWithUCT(Node node) {
+    	Node best = null;
+    	double bestValue = Double.NEGATIVE_INFINITY;
+    	for (int i = 0; i < node.getChildCount(); i++) {
+    		Node child = node.getChild(i);
+    		if (child == null) {
+    			continue; // still being built by another thread
+    		}
+    		double value = uctValue(node.getVisitCount(), child.getWinScore(), child.getVisitCount());
+    		if (value > bestValue) {
+    			bestValue = value;
+    			best = child;
+    		}
+    	}
+    	return best;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,162 @@
+package tablut;
+
+import java.util.Arrays;
+
+import coordinates.Coord;
+import coordinates.Coordinates;
+
+/**
+ * Precomputed masks for the bitboard representation used by TablutBoardState.
+ *
+ * A set of squares is stored as a pair of longs. Square (x, y) has index
+ * x * BOARD_SIZE + y; squares 0-63 live in the low word and squares 64-80 in
+ * the high word. Every table below is split the same way into a LO and a HI
+ * half so that set operations are plain long arithmetic. The geometry itself
+ * comes from the tables precomputed in Coordinates.
+ */
+final class Bitboards {
+    static final int SIZE = TablutBoardState.BOARD_SIZE;
+    static final int SQUARES = SIZE * SIZE;
+    static final int CENTER = (SIZE / 2) * SIZE + SIZE / 2;
+
+    /* Single-square masks. */
+    static final long[] LO = new long[SQUARES];
+    static final long[] HI = new long[SQUARES];
+
+    /* Neighbor square in each direction, or -1 if it would be off the board. */
+    static final int[][] NEIGHBOR = new int[Coordinates.NUM_DIRECTIONS][SQUARES];
+    static final long[] NEIGHBORS_LO = new long[SQUARES];
+    static final long[] NEIGHBORS_HI = new long[SQUARES];
+
+    /* All squares strictly beyond a square in each direction, up to the edge. */
+    static final long[][] RAY_LO = new long[Coordinates.NUM_DIRECTIONS][SQUARES];
+    static final long[][] RAY_HI = new long[Coordinates.NUM_DIRECTIONS][SQUARES];
+
+    /*
+     * Square reached by going a distance (1 to SIZE - 1) in each direction,
+     * indexed by sq * SIZE + distance, or -1 if it would be off the board.
+     */
+    static final int[][] TARGET = new int[Coordinates.NUM_DIRECTIONS][SQUARES * SIZE];
+
+    /*
+     * Squares strictly between two squares on the same row or column, indexed by
+     * from * SQUARES + to. Empty for any other pair.
+     */
+    static final long[] BETWEEN_LO = new long[SQUARES * SQUARES];
+    static final long[] BETWEEN_HI = new long[SQUARES * SQUARES];
+
+    /* Special squares. */
+    static final long BOARD_LO = ~0L;
+    static final long BOARD_HI = (1L << (SQUARES - 64)) - 1;
+    static final long CORNERS_LO;
+    static final long CORNERS_HI;
+    static final long CENTER_LO;
+    static final long CENTER_HI;
+    static final long RESTRICTED_LO; // only the king may stop on these
+    static final long RESTRICTED_HI;
+    static final long CENTER_AREA_LO; // center and its four neighbors
+    static final long CENTER_AREA_HI;
+    static final long CENTER_PASS_LO; // squares a pass over the center depends on: the center and its neighbors
+    static final long CENTER_PASS_HI;
+    static final int[] CORNER_SQUARES;
+
+    static {
+        Coordinates.setAllCoordinates(SIZE);
+        for (int sq = 0; sq < SQUARES; sq++) {
+            LO[sq] = (sq < 64) ? 1L << sq : 0L;
+            HI[sq] = (sq < 64) ? 0L : 1L << (sq - 64);
+        }
+        for (Coord c : Coordinates.iterCoordinates()) {
+            int sq = square(c);
+            for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+                Coord neighbor = Coordinates.getNeighbor(c, d);
+                NEIGHBOR[d][sq] = (neighbor == null) ? -1 : square(neighbor);
+                Arrays.fill(TARGET[d], sq * SIZE, (sq + 1) * SIZE, -1);
+                int distance = 1;
+                for (Coord r : Coordinates.getRay(c, d)) {
+                    RAY_LO[d][sq] |= LO[square(r)];
+                    RAY_HI[d][sq] |= HI[square(r)];
+                    TARGET[d][sq * SIZE + distance++] = square(r);
+                }
+            }
+            for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+                long betweenLo = 0;
+                long betweenHi = 0;
+                for (Coord r : Coordinates.getRay(c, d)) {
+                    BETWEEN_LO[sq * SQUARES + square(r)] = betweenLo;
+                    BETWEEN_HI[sq * SQUARES + square(r)] = betweenHi;
+                    betweenLo |= LO[square(r)];
+                    betweenHi |= HI[square(r)];
+                }
+            }
+            for (Coord neighbor : Coordinates.getNeighbors(c)) {
+                NEIGHBORS_LO[sq] |= LO[square(neighbor)];
+                NEIGHBORS_HI[sq] |= HI[square(neighbor)];
+            }
+        }
+
+        long cornersLo = 0;
+        long cornersHi = 0;
+        for (Coord corner : Coordinates.getCorners()) {
+            cornersLo |= LO[square(corner)];
+            cornersHi |= HI[square(corner)];
+        }
+        CORNERS_LO = cornersLo;
+        CORNERS_HI = cornersHi;
+        CORNER_SQUARES = new int[Coordinates.getCorners().size()];
+        for (int i = 0; i < CORNER_SQUARES.length; i++) {
+            CORNER_SQUARES[i] = square(Coordinates.getCorners().get(i));
+        }
+        CENTER_LO = LO[CENTER];
+        CENTER_HI = HI[CENTER];
+        RESTRICTED_LO = CORNERS_LO | CENTER_LO;
+        RESTRICTED_HI = CORNERS_HI | CENTER_HI;
+        CENTER_AREA_LO = CENTER_LO | NEIGHBORS_LO[CENTER];
+        CENTER_AREA_HI = CENTER_HI | NEIGHBORS_HI[CENTER];
+        // A piece next to the center passes over it to the opposite neighbor.
+        CENTER_PASS_LO = CENTER_AREA_LO;
+        CENTER_PASS_HI = CENTER_AREA_HI;
+    }
+
+    private Bitboards() {
+    }
+
+    static int square(int x, int y) {
+        return x * SIZE + y;
+    }
+
+    static int square(Coord c) {
+        return square(c.x, c.y);
+    }
+
+    static Coord coord(int sq) {
+        return Coordinates.get(sq / SIZE, sq % SIZE);
+    }
+
+    // Directions +x and +y walk towards higher square indices.
+    static boolean isPositive(int direction) {
+        return direction == Coordinates.PLUS_X || direction == Coordinates.PLUS_Y;
+    }
+
+    static int opposite(int direction) {
+        return (direction + 2) % Coordinates.NUM_DIRECTIONS;
+    }
+
+    static boolean has(long lo, long hi, int sq) {
+        return ((lo & LO[sq]) | (hi & HI[sq])) != 0;
+    }
+
+    static int count(long lo, long hi) {
+        return Long.bitCount(lo) + Long.bitCount(hi);
+    }
+
+    // Lowest square in a non-empty set.
+    static int lowest(long lo, long hi) {
+        return (lo != 0) ? Long.numberOfTrailingZeros(lo) : 64 + Long.numberOfTrailingZeros(hi);
+    }
+
+    // Highest square in a non-empty set.
+    static int highest(long lo, long hi) {
+        return (hi != 0) ? 127 - Long.numberOfLeadingZeros(hi) : 63 - Long.numberOfLeadingZeros(lo);
+    }
+}
@@ -0,0 +1,337 @@
+package tablut;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import boardgame.Board;
+import coordinates.Coord;
+import coordinates.Coordinates;
+
+/**
+ * Consistency checks for the parts of TablutBoardState that are kept up to date
+ * incrementally or computed by a shortcut. Random games are played move by move
+ * with applyMove and then taken back with undoMove, and the state is checked
+ * after every move and every undo. Any change to the board representation must
+ * keep this passing.
+ *
+ * Checked: the perft counts of the initial position against the baseline in
+ * Perft; the mobility mask (pieces with at least one legal move) against a
+ * recomputation with the move generator; the Zobrist key against a hash from
+ * scratch; pliesToDraw against the turn the game is drawn at; that undoing a
+ * move gives back the state it was made in. Shuffling two pieces back and forth
+ * brings the initial position back at later and later turns, and its
+ * drawHorizonKey must ignore the turn number until the draw is within the
+ * horizon, and tell the turns apart from then on. Before
+ * every move of the games, each legal move is also made and taken back to check
+ * isCapture against what the move really captured, and
+ * getCaptureAndEscapeMoves against the legal moves filtered by its definition.
+ * At one position of each game, tryRandomMove is sampled many times: it must
+ * only return legal moves, return every one of them, and pass a chi-square
+ * test of uniformity.
+ *
+ * Usage: java -cp bin tablut.Check [games] [seed]
+ *
+ * Prints every failure and exits with status 1 if there was any.
+ */
+public class Check {
+    private static final int MAX_REPORTED = 20;
+    // perft(depth) and its captures from the initial position, see Perft
+    private static final long[][] PERFT = { { 72, 0 }, { 3944, 40 }, { 285728, 6680 } };
+    // tryRandomMove draws per legal move, and the chi-square z score above which it isn't uniform
+    private static final int SAMPLES_PER_MOVE = 100;
+    private static final double MAX_UNIFORMITY_Z = 6;
+    // plies before the position tryRandomMove is sampled at
+    private static final int SAMPLE_PLIES = 80;
+    // look-ahead drawHorizonKey is checked with
+    private static final int DRAW_HORIZON = 8;
+
+    private final Random rand;
+    private final MoveBuffer moves = new MoveBuffer();
+    private final MoveBuffer tactical = new MoveBuffer();
+    private int failures;
+    private long checks;
+
+    public Check(long seed) {
+        rand = new Random(seed);
+    }
+
+    /**
+     * Plays one random game to the end and takes all of it back.
+     */
+    public void playGame() {
+        TablutBoardState state = new TablutBoardState();
+        long[] undos = new long[2 * TablutBoardState.MAX_TURNS + 2];
+        int[] played = new int[undos.length];
+        TablutBoardState[] before = new TablutBoardState[undos.length];
+        int plies = 0;
+        int samplePly = rand.nextInt(SAMPLE_PLIES);
+        checkState(state, "start", 0);
+        while (!state.gameOver()) {
+            checkMoves(state);
+            if (plies == samplePly) {
+                checkRandomMoves(state);
+            }
+            state.getAllLegalMoves(moves);
+            int move = moves.get(rand.nextInt(moves.size()));
+            played[plies] = move;
+            before[plies] = (TablutBoardState) state.clone();
+            undos[plies++] = state.applyMove(move);
+            checkState(state, "after", move);
+        }
+        while (plies > 0) {
+            state.undoMove(undos[--plies]);
+            checkState(state, "after undoing", played[plies]);
+            if (!sameState(state, before[plies])) {
+                fail(state, "undo doesn't restore the state", played[plies]);
+            }
+        }
+    }
+
+    /**
+     * Checks the perft counts from the initial position.
+     */
+    public void checkPerft() {
+        TablutBoardState state = new TablutBoardState();
+        for (int depth = 1; depth <= PERFT.length; depth++) {
+            Perft perft = new Perft(state, depth);
+            long nodes = perft.run(depth);
+            checks++;
+            if (nodes != PERFT[depth - 1][0] || perft.getCaptures() != PERFT[depth - 1][1]) {
+                fail(state, "perft(" + depth + ") = " + nodes + " (" + perft.getCaptures() + " captures), expected "
+                        + PERFT[depth - 1][0] + " (" + PERFT[depth - 1][1] + " captures)", 0);
+            }
+        }
+    }
+
+    /**
+     * Brings the initial position back every other turn up to the draw, and
+     * checks its drawHorizonKey at each of them.
+     */
+    public void checkDrawHorizonKey() {
+        TablutBoardState state = new TablutBoardState();
+        TablutBoardState start = (TablutBoardState) state.clone();
+        int[] shuffle = findShuffle(state);
+        long farKey = state.drawHorizonKey(DRAW_HORIZON);
+        long lastKey = farKey;
+        while (true) {
+            long key = state.drawHorizonKey(DRAW_HORIZON);
+            checks++;
+            if (state.pliesToDraw() > DRAW_HORIZON && key != farKey) {
+                fail(state, "drawHorizonKey depends on the turn number " + state.getTurnNumber()
+                        + " before the draw horizon", 0);
+            }
+            if (state.pliesToDraw() <= DRAW_HORIZON && key == lastKey) {
+                fail(state, "drawHorizonKey is the same at turn " + state.getTurnNumber()
+                        + " as two turns before, within the draw horizon", 0);
+            }
+            lastKey = key;
+            for (int move : shuffle) {
+                if (state.gameOver()) {
+                    return;
+                }
+                state.applyMove(move);
+            }
+            if (!state.equals(start)) {
+                fail(state, "shuffling didn't bring the initial position back", 0);
+                return;
+            }
+        }
+    }
+
+    // Four moves without captures, a move and its way back for each player, that end where they started.
+    private static int[] findShuffle(TablutBoardState state) {
+        MoveBuffer first = new MoveBuffer();
+        MoveBuffer second = new MoveBuffer();
+        state.getAllLegalMoves(first);
+        for (int i = 0; i < first.size(); i++) {
+            int a = first.get(i);
+            long undoA = state.applyMove(a);
+            state.getAllLegalMoves(second);
+            for (int j = 0; j < second.size(); j++) {
+                int b = second.get(j);
+                int[] shuffle = { a, b, back(a), back(b) };
+                TablutBoardState copy = (TablutBoardState) state.clone();
+                copy.undoMove(undoA);
+                TablutBoardState before = (TablutBoardState) copy.clone();
+                boolean legal = true;
+                for (int move : shuffle) {
+                    int pieces = copy.getNumberPlayerPieces(copy.getOpponent());
+                    legal = !copy.gameOver() && copy.isLegalFast(TablutMove.from(move), TablutMove.to(move));
+                    if (!legal) {
+                        break;
+                    }
+                    copy.applyMove(move);
+                    legal = copy.getNumberPlayerPieces(copy.getTurnPlayer()) == pieces;
+                    if (!legal) {
+                        break;
+                    }
+                }
+                if (legal && copy.equals(before)) {
+                    state.undoMove(undoA);
+                    return shuffle;
+                }
+            }
+            state.undoMove(undoA);
+        }
+        throw new IllegalStateException("no shuffle from the initial position");
+    }
+
+    private static int back(int move) {
+        return TablutMove.encode(TablutMove.to(move), TablutMove.from(move), TablutMove.player(move));
+    }
+
+    private void checkState(TablutBoardState state, String when, int move) {
+        checks++;
+        if (!state.mobilityIsConsistent()) {
+            fail(state, "mobility mask is stale " + when, move);
+        }
+        if (state.hashKey() != state.computeHashKey()) {
+            fail(state, "hash key differs from a full recompute " + when, move);
+        }
+        if (state.getWinner() == Board.NOBODY && state.gameOver() != (state.pliesToDraw() <= 0)) {
+            fail(state, "pliesToDraw is " + state.pliesToDraw() + " at turn " + state.getTurnNumber() + " " + when,
+                    move);
+        }
+    }
+
+    // Makes every legal move to compare isCapture and the tactical moves with what it did.
+    private void checkMoves(TablutBoardState state) {
+        state.getAllLegalMoves(moves);
+        int[] expected = new int[moves.size()];
+        int count = 0;
+        int opponent = state.getOpponent();
+        int opponentPieces = state.getNumberPlayerPieces(opponent);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean predicted = state.isCapture(move);
+            boolean escape = isEscape(state, move);
+            long undo = state.applyMove(move);
+            boolean captured = state.getNumberPlayerPieces(opponent) < opponentPieces;
+            state.undoMove(undo);
+            if (predicted != captured) {
+                fail(state, "isCapture is " + predicted + " for", move);
+            }
+            if (captured || escape) {
+                expected[count++] = move;
+            }
+        }
+        state.getCaptureAndEscapeMoves(tactical);
+        int[] generated = new int[tactical.size()];
+        for (int i = 0; i < generated.length; i++) {
+            generated[i] = tactical.get(i);
+        }
+        expected = Arrays.copyOf(expected, count);
+        Arrays.sort(expected);
+        Arrays.sort(generated);
+        checks++;
+        if (!Arrays.equals(expected, generated)) {
+            fail(state, "capture and escape moves are " + Arrays.toString(generated) + ", expected "
+                    + Arrays.toString(expected), 0);
+        }
+    }
+
+    // Draws from tryRandomMove until every legal move should have come out SAMPLES_PER_MOVE times.
+    private void checkRandomMoves(TablutBoardState state) {
+        state.getAllLegalMoves(moves);
+        int[] legal = new int[moves.size()];
+        for (int i = 0; i < legal.length; i++) {
+            legal[i] = moves.get(i);
+        }
+        Arrays.sort(legal);
+        int[] hits = new int[legal.length];
+        for (int drawn = 0; drawn < legal.length * SAMPLES_PER_MOVE;) {
+            int move = state.tryRandomMove(rand.nextInt());
+            if (move == 0) {
+                continue;
+            }
+            int index = Arrays.binarySearch(legal, move);
+            if (index < 0) {
+                fail(state, "tryRandomMove returned an illegal move", move);
+                return;
+            }
+            hits[index]++;
+            drawn++;
+        }
+        double chiSquare = 0;
+        for (int i = 0; i < legal.length; i++) {
+            if (hits[i] == 0) {
+                fail(state, "tryRandomMove never returned", legal[i]);
+                return;
+            }
+            chiSquare += (hits[i] - SAMPLES_PER_MOVE) * (double) (hits[i] - SAMPLES_PER_MOVE) / SAMPLES_PER_MOVE;
+        }
+        checks++;
+        int freedom = Math.max(1, legal.length - 1);
+        double z = (chiSquare - freedom) / Math.sqrt(2.0 * freedom);
+        if (z > MAX_UNIFORMITY_Z) {
+            fail(state, String.format("tryRandomMove is not uniform: chi-square z score %.1f", z), 0);
+        }
+    }
+
+    // A king move to a corner, or to an edge square with nothing between it and a corner.
+    private static boolean isEscape(TablutBoardState state, int move) {
+        Coord from = Bitboards.coord(TablutMove.from(move));
+        Coord to = Bitboards.coord(TablutMove.to(move));
+        if (state.getPieceAt(from) != TablutBoardState.Piece.KING) {
+            return false;
+        }
+        for (Coord corner : Coordinates.getCorners()) {
+            if ((corner.x == to.x) == (corner.y == to.y)) {
+                if (corner.equals(to)) {
+                    return true;
+                }
+                continue; // not on a line with this corner
+            }
+            int dx = Integer.signum(corner.x - to.x);
+            int dy = Integer.signum(corner.y - to.y);
+            boolean clear = true;
+            for (int x = to.x + dx, y = to.y + dy; x != corner.x || y != corner.y; x += dx, y += dy) {
+                if ((x != from.x || y != from.y) && state.getPieceAt(x, y) != TablutBoardState.Piece.EMPTY) {
+                    clear = false;
+                }
+            }
+            if (clear) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameState(TablutBoardState a, TablutBoardState b) {
+        return a.equals(b) && a.getTurnNumber() == b.getTurnNumber() && a.getWinner() == b.getWinner()
+                && a.getTurnPlayer() == b.getTurnPlayer();
+    }
+
+    private void fail(TablutBoardState state, String message, int move) {
+        failures++;
+        if (failures <= MAX_REPORTED) {
+            String moveText = (move == 0) ? "" : " " + TablutMove.fromPacked(move).toPrettyString();
+            System.out.println("FAIL: " + message + moveText);
+            state.printBoard();
+        }
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public long getChecks() {
+        return checks;
+    }
+
+    public static void main(String[] args) {
+        int games = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : 1648;
+        Check check = new Check(seed);
+        check.checkPerft();
+        check.checkDrawHorizonKey();
+        for (int g = 0; g < games; g++) {
+            check.playGame();
+        }
+        System.out.println(check.getChecks() + " states checked in " + games + " games, " + check.getFailures()
+                + " failures");
+        if (check.getFailures() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -33,15 +33,14 @@ public class GreedyTablutPlayer extends TablutPlayer {
 
         // Iterate over move options and evaluate them.
         for (TablutMove move : options) {
-            // To evaluate a move, clone the boardState so that we can do modifications on
-            // it.
-            TablutBoardState cloneBS = (TablutBoardState) bs.clone();
-
-            // Process that move, as if we actually made it happen.
-            cloneBS.processMove(move);
+            // Process that move, as if we actually made it happen. We keep the undo
+            // record so we can take it back afterwards instead of cloning the boardState.
+            long undo = bs.applyMove(move);
 
             // Check how many opponent pieces there are now, maybe we captured some!
-            int newNumberOfOpponentPieces = cloneBS.getNumberPlayerPieces(opponent);
+            int newNumberOfOpponentPieces = bs.getNumberPlayerPieces(opponent);
+            int winner = bs.getWinner();
+            bs.undoMove(undo);
 
             // If this move caused some capturing to happen, then do it! Greedy!
             if (newNumberOfOpponentPieces < minNumberOfOpponentPieces) {
@@ -56,7 +55,7 @@ public class GreedyTablutPlayer extends TablutPlayer {
              * white can move to a corner, since if either of these things happen then a
              * winner will be set.
              */
-            if (cloneBS.getWinner() == player_id) {
+            if (winner == player_id) {
                 bestMove = move;
                 moveCaptures = true;
                 break;
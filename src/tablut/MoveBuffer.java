@@ -0,0 +1,46 @@
+package tablut;
+
+/**
+ * A caller-owned list of moves in the packed int encoding of TablutMove. The
+ * move generator fills it without allocating anything, so one buffer per ply
+ * (or per thread) can be reused for a whole search or playout.
+ */
+public final class MoveBuffer {
+    /*
+     * Upper bound on the number of legal moves in any position: 16 Muscovites,
+     * each with at most 8 squares along its row and 8 along its column.
+     */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private int size = 0;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    // Drops the moves from index "size" on, e.g. after filtering in place.
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
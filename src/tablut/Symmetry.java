@@ -0,0 +1,66 @@
+package tablut;
+
+/**
+ * The eight symmetries of the board: the rotations by a multiple of 90 degrees,
+ * each with or without a reflection. The corners, the center and the starting
+ * position map onto themselves under all of them, so symmetric positions have
+ * symmetric best moves, and anything keyed by position only needs to store one
+ * position of each class (see TablutBoardState.hashKey(int)).
+ *
+ * Symmetry 0 is the identity. Squares are x * BOARD_SIZE + y as everywhere.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    /* Image of every square under every symmetry, and the inverse of each symmetry. */
+    private static final int[][] SQUARE = new int[COUNT][Bitboards.SQUARES];
+    private static final int[] INVERSE = new int[COUNT];
+
+    static {
+        int last = Bitboards.SIZE - 1;
+        for (int s = 0; s < COUNT; s++) {
+            for (int x = 0; x <= last; x++) {
+                for (int y = 0; y <= last; y++) {
+                    // bit 0 swaps the axes, bit 1 mirrors x, bit 2 mirrors y
+                    int tx = ((s & 1) != 0) ? y : x;
+                    int ty = ((s & 1) != 0) ? x : y;
+                    if ((s & 2) != 0)
+                        tx = last - tx;
+                    if ((s & 4) != 0)
+                        ty = last - ty;
+                    SQUARE[s][Bitboards.square(x, y)] = Bitboards.square(tx, ty);
+                }
+            }
+        }
+        for (int s = 0; s < COUNT; s++) {
+            for (int t = 0; t < COUNT; t++) {
+                if (SQUARE[t][SQUARE[s][1]] == 1 && SQUARE[t][SQUARE[s][Bitboards.SIZE]] == Bitboards.SIZE) {
+                    INVERSE[s] = t;
+                }
+            }
+        }
+    }
+
+    private Symmetry() {
+    }
+
+    public static int square(int sq, int symmetry) {
+        return SQUARE[symmetry][sq];
+    }
+
+    /**
+     * Applies a symmetry to a packed move; the player is unchanged.
+     */
+    public static int move(int move, int symmetry) {
+        return TablutMove.encode(SQUARE[symmetry][TablutMove.from(move)], SQUARE[symmetry][TablutMove.to(move)],
+                TablutMove.player(move));
+    }
+
+    /**
+     * The symmetry that undoes the given one.
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+}
@@ -5,7 +5,6 @@ import boardgame.BoardState;
 import boardgame.Move;
 import coordinates.Coord;
 import coordinates.Coordinates;
-import coordinates.Coordinates.CoordinateDoesNotExistException;
 import tablut.TablutMove;
 
 import java.util.ArrayList;
@@ -23,13 +22,13 @@ public class TablutBoardState extends BoardState {
     public static final int MUSCOVITE = 0;
     public static final int BOARD_SIZE = 9; // 9x9 board for tablut
     public static final int MAX_TURNS = 50;
+    public static final int MAX_PIECES = 16; // per player, the Muscovites start with 16
 
     public static enum Piece {
         BLACK, WHITE, KING, EMPTY
     }
 
     private static HashMap<Piece, String> piecesToSymbols;
-    private static HashMap<Piece, Integer> piecesToPlayer;
     static {
         piecesToSymbols = new HashMap<>();
         piecesToSymbols.put(Piece.BLACK, "B");
@@ -37,84 +36,111 @@ public class TablutBoardState extends BoardState {
         piecesToSymbols.put(Piece.KING, "K");
         piecesToSymbols.put(Piece.EMPTY, " ");
 
-        piecesToPlayer = new HashMap<>();
-        piecesToPlayer.put(Piece.BLACK, MUSCOVITE);
-        piecesToPlayer.put(Piece.WHITE, SWEDE);
-        piecesToPlayer.put(Piece.KING, SWEDE);
-        piecesToPlayer.put(Piece.EMPTY, ILLEGAL);
-
         Coordinates.setAllCoordinates(BOARD_SIZE);
     }
 
     private static int FIRST_PLAYER = 0; // first player white, second player black
 
-    /* These are our data storage things. */
-    private Piece[][] board = new Piece[BOARD_SIZE][BOARD_SIZE];
-    private HashSet<Coord> muscoviteCoords; // we can use hashsets because
-    private HashSet<Coord> swedeCoords;
-    private Coord kingPosition;
-    private Random rand = new Random(1917);
+    /*
+     * These are our data storage things. The board is kept as bitboards: one
+     * 81-square mask per kind of piece, each packed into a pair of longs (see
+     * Bitboards for the layout). Swedes are the white pieces plus the king.
+     */
+    private long blackLo, blackHi;
+    private long whiteLo, whiteHi;
+    private long kingLo, kingHi;
+    private long hashKey; // Zobrist key, kept up to date by every move
+    private long mobileLo, mobileHi; // pieces (of both players) with at least one legal move
+    private Random rand; // for getRandomMove, created on first use so clones don't pay for it
     private int turnPlayer;
     private int turnNumber = 1;
     private int winner = Board.NOBODY;
 
+    /*
+     * Layout of the undo records returned by applyMove. The low word holds the
+     * move and what it destroyed, the high word holds the previous winner as is.
+     */
+    private static final int UNDO_TO_SHIFT = 7;
+    private static final int UNDO_PIECE_SHIFT = 14; // Piece ordinal of the moved piece
+    private static final int UNDO_CAPTURES_SHIFT = 16; // one flag per direction around "to"
+    private static final int UNDO_KING_SHIFT = 20; // previous king square, NO_KING if captured
+    private static final int UNDO_TURN_SHIFT = 27;
+    private static final int NO_KING = 0x7F;
+    private static final Piece[] PIECES = Piece.values();
+
+    /*
+     * A random move is drawn as a mobile piece, a direction and a distance, 32
+     * candidates per piece. Past this many rejected candidates getRandomMove
+     * gives up and picks from the full list.
+     */
+    private static final int CANDIDATE_BITS = 5;
+    private static final int RANDOM_MOVE_TRIES = 32;
+
     // Initial Board State creation. The genesis constructor.
     public TablutBoardState() {
         super();
 
-        // Initialize to empty
-        for (Coord c : Coordinates.iterCoordinates()) {
-            board[c.x][c.y] = Piece.EMPTY;
-        }
-
         /* We now place the pieces on the board */
         int middlePosition = 4;
-        board[middlePosition][middlePosition] = Piece.KING;
+        kingLo = Bitboards.LO[Bitboards.square(middlePosition, middlePosition)];
+        kingHi = Bitboards.HI[Bitboards.square(middlePosition, middlePosition)];
 
         // Blacks. (Muscovites)
         List<Integer> blackSidePieces = Arrays.asList(3, 4, 5);
         List<Integer> axes = Arrays.asList(0, 8);
         for (Integer axis : axes) {
             for (Integer position : blackSidePieces) {
-                board[position][axis] = Piece.BLACK;
-                board[axis][position] = Piece.BLACK;
+                placeBlack(position, axis);
+                placeBlack(axis, position);
             }
         }
         axes = Arrays.asList(1, 7);
         for (Integer axis : axes) {
-            board[axis][middlePosition] = Piece.BLACK;
-            board[middlePosition][axis] = Piece.BLACK;
+            placeBlack(axis, middlePosition);
+            placeBlack(middlePosition, axis);
         }
         // Whites. (Swedes)
         axes = Arrays.asList(2, 3, 5, 6);
         for (Integer axis : axes) {
-            board[axis][middlePosition] = Piece.WHITE;
-            board[middlePosition][axis] = Piece.WHITE;
-        }
-        // Update the lists storing the coordinates of all the pieces.
-        swedeCoords = new HashSet<>();
-        muscoviteCoords = new HashSet<>();
-        for (Coord c : Coordinates.iterCoordinates()) {
-            Piece piece = getPieceAt(c);
-            if (piecesToPlayer.get(piece) == SWEDE) {
-                swedeCoords.add(c);
-            } else if (piecesToPlayer.get(piece) == MUSCOVITE) {
-                muscoviteCoords.add(c);
-            }
+            placeWhite(axis, middlePosition);
+            placeWhite(middlePosition, axis);
         }
-        kingPosition = Coordinates.get(4, 4);
+        hashKey = computeHashKey();
+        refreshMobility(Bitboards.BOARD_LO, Bitboards.BOARD_HI);
+    }
+
+    private void placeBlack(int x, int y) {
+        blackLo |= Bitboards.LO[Bitboards.square(x, y)];
+        blackHi |= Bitboards.HI[Bitboards.square(x, y)];
+    }
+
+    private void placeWhite(int x, int y) {
+        whiteLo |= Bitboards.LO[Bitboards.square(x, y)];
+        whiteHi |= Bitboards.HI[Bitboards.square(x, y)];
     }
 
     /* The below method is for the purpose of cloning. */
     private TablutBoardState(TablutBoardState boardState) {
-        for (Coord c : Coordinates.iterCoordinates()) {
-            board[c.x][c.y] = boardState.board[c.x][c.y];
-        }
-        swedeCoords = new HashSet<>(boardState.swedeCoords);
-        muscoviteCoords = new HashSet<>(boardState.muscoviteCoords);
-        kingPosition = boardState.kingPosition;
+        copyFrom(boardState);
+    }
+
+    /**
+     * Makes this state a copy of another one, like clone() but without
+     * allocating, so that a playout can reuse one scratch state for every game.
+     */
+    public void copyFrom(TablutBoardState boardState) {
+        blackLo = boardState.blackLo;
+        blackHi = boardState.blackHi;
+        whiteLo = boardState.whiteLo;
+        whiteHi = boardState.whiteHi;
+        kingLo = boardState.kingLo;
+        kingHi = boardState.kingHi;
+        hashKey = boardState.hashKey;
+        mobileLo = boardState.mobileLo;
+        mobileHi = boardState.mobileHi;
         turnPlayer = boardState.turnPlayer;
         turnNumber = boardState.turnNumber;
+        winner = boardState.winner;
     }
 
     @Override
@@ -122,79 +148,310 @@ public class TablutBoardState extends BoardState {
         return new TablutBoardState(this);
     }
 
+    // Hashes the whole position from scratch. Moves update hashKey incrementally.
+    long computeHashKey() {
+        long key = (turnPlayer == SWEDE) ? Zobrist.SWEDE_TO_MOVE : 0;
+        long[][] masks = { { blackLo, blackHi }, { whiteLo, whiteHi }, { kingLo, kingHi } };
+        for (Piece piece : Arrays.asList(Piece.BLACK, Piece.WHITE, Piece.KING)) {
+            long lo = masks[piece.ordinal()][0];
+            long hi = masks[piece.ordinal()][1];
+            while ((lo | hi) != 0) {
+                int sq = Bitboards.lowest(lo, hi);
+                lo &= ~Bitboards.LO[sq];
+                hi &= ~Bitboards.HI[sq];
+                key ^= Zobrist.PIECE_SQUARE[piece.ordinal()][sq];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the 64-bit Zobrist key of this position: the pieces on the board and
+     * the player to move. It is updated incrementally, so this is free to call at
+     * every node, e.g. to index transposition tables or evaluation caches.
+     */
+    public long hashKey() {
+        return hashKey;
+    }
+
+    /**
+     * Returns hashKey(), with the turn number hashed in as well once the draw on
+     * turns is at most the given number of plies away. From then on the same
+     * pieces at another turn number can lead to another result, so a search that
+     * looks that far ahead must not share what it stored between the two.
+     */
+    public long drawHorizonKey(int horizon) {
+        return (pliesToDraw() > horizon) ? hashKey : hashKey ^ Zobrist.TURN[turnNumber];
+    }
+
+    /**
+     * Number of plies left before the game is drawn on turns, if nobody wins
+     * first; 0 once it is.
+     */
+    public int pliesToDraw() {
+        return 2 * (MAX_TURNS - turnNumber) + ((turnPlayer == FIRST_PLAYER) ? 2 : 1);
+    }
+
+    /**
+     * Returns the Zobrist key the position would have after applying one of the
+     * board symmetries to it (see Symmetry), computed from scratch. The smallest of
+     * the eight keys identifies the position up to symmetry.
+     */
+    public long hashKey(int symmetry) {
+        if (symmetry == Symmetry.IDENTITY) {
+            return hashKey;
+        }
+        long key = (turnPlayer == SWEDE) ? Zobrist.SWEDE_TO_MOVE : 0;
+        long[][] masks = { { blackLo, blackHi }, { whiteLo, whiteHi }, { kingLo, kingHi } };
+        for (int piece = 0; piece < masks.length; piece++) {
+            long lo = masks[piece][0];
+            long hi = masks[piece][1];
+            while ((lo | hi) != 0) {
+                int sq = Bitboards.lowest(lo, hi);
+                lo &= ~Bitboards.LO[sq];
+                hi &= ~Bitboards.HI[sq];
+                key ^= Zobrist.PIECE_SQUARE[piece][Symmetry.square(sq, symmetry)];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Two states are equal when they have the same pieces on the same squares and
+     * the same player to move, which is exactly what hashKey() describes. The turn
+     * number and winner are not compared.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TablutBoardState)) {
+            return false;
+        }
+        TablutBoardState other = (TablutBoardState) o;
+        return hashKey == other.hashKey && turnPlayer == other.turnPlayer && blackLo == other.blackLo
+                && blackHi == other.blackHi && whiteLo == other.whiteLo && whiteHi == other.whiteHi
+                && kingLo == other.kingLo && kingHi == other.kingHi;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hashKey ^ (hashKey >>> 32));
+    }
+
     /**
      * Here and below are for dealing with moves, and processing captures.
      */
     public void processMove(TablutMove m) throws IllegalArgumentException {
+        applyMove(m);
+    }
+
+    /**
+     * Plays a move exactly like processMove, but also returns a compact undo
+     * record: the squares moved between, the moved piece, which neighbors got
+     * captured, the previous king position, turn player and winner. Passing it to
+     * undoMove restores this state exactly, so searches can walk one mutable state
+     * (keeping the records on a stack) instead of cloning one per child.
+     */
+    public long applyMove(TablutMove m) throws IllegalArgumentException {
         if (!isLegal(m)) { // isLegal checks if the player is the correct player.
             throw new IllegalArgumentException("Invalid move for current context. " + "Move: " + m.toPrettyString());
         }
+        int from = Bitboards.square(m.getStartPosition());
+        int to = Bitboards.square(m.getEndPosition());
+        return makeMove(from, to);
+    }
 
-        // Process move...
-        Coord oldPos = m.getStartPosition();
-        Coord newPos = m.getEndPosition();
-        Piece movingPiece = getPieceAt(oldPos);
-
-        // Get memory address to the list we are working on, then update it.
-        HashSet<Coord> playerCoordSet = getPlayerCoordSet();
-        playerCoordSet.remove(oldPos); // We can do this remove
-        playerCoordSet.add(newPos);
-        if (movingPiece == Piece.KING)
-            kingPosition = newPos;
-
-        // Now update board.
-        board[oldPos.x][oldPos.y] = Piece.EMPTY;
-        board[newPos.x][newPos.y] = movingPiece;
-
-        // Now check if a capture occurred. Only a piece next to the new position could
-        // have been captured.
-        List<Coord> captured = new ArrayList<>();
-        for (Coord enemy : Coordinates.getNeighbors(newPos)) {
-            if (isOpponentPieceAt(enemy)) {
-                boolean canCapture = true;
-
-                // If the opponent is a king, we need to check if its at the center or the
-                // neighbors of center.
-                // If it is, then it can only be captured on all 4 sides.
-                if (getPieceAt(enemy) == Piece.KING && Coordinates.isCenterOrNeighborCenter(kingPosition)) {
-                    for (Coord possibleAlly : Coordinates.getNeighbors(enemy)) {
-                        if (getPieceAt(possibleAlly) != Piece.BLACK && !Coordinates.isCenter(possibleAlly)) {
-                            canCapture = false;
-                            break;
-                        }
-                    }
-                } else { // Otherwise, check for the normal, sandwich-based capture rule.
-                    try {
-                        Coord sandwichCord = Coordinates.getSandwichCoord(newPos, enemy);
-                        canCapture = canCaptureWithCoord(sandwichCord);
-                    } catch (CoordinateDoesNotExistException e) {
-                        canCapture = false;
-                    }
-                }
-                if (canCapture) {
-                    captured.add(enemy);
-                }
+    /**
+     * Plays a packed move (see TablutMove.encode) and returns its undo record. For
+     * speed there is no legality check, so the move must come from the move
+     * generator for this very state, e.g. through getAllLegalMoves(MoveBuffer).
+     */
+    public long applyMove(int move) {
+        return makeMove(TablutMove.from(move), TablutMove.to(move));
+    }
+
+    /**
+     * Takes back the move that produced the given undo record. Records must be
+     * undone in the reverse order they were applied.
+     */
+    public void undoMove(long undo) {
+        int from = (int) undo & 0x7F;
+        int to = (int) (undo >>> UNDO_TO_SHIFT) & 0x7F;
+        Piece moved = PIECES[(int) (undo >>> UNDO_PIECE_SHIFT) & 0x3];
+        int captures = (int) (undo >>> UNDO_CAPTURES_SHIFT) & 0xF;
+        int king = (int) (undo >>> UNDO_KING_SHIFT) & 0x7F;
+        int player = (int) (undo >>> UNDO_TURN_SHIFT) & 0x1;
+
+        // Put the moved piece back.
+        long moveLo = Bitboards.LO[from] | Bitboards.LO[to];
+        long moveHi = Bitboards.HI[from] | Bitboards.HI[to];
+        hashKey ^= Zobrist.PIECE_SQUARE[moved.ordinal()][from] ^ Zobrist.PIECE_SQUARE[moved.ordinal()][to];
+        if (moved == Piece.KING) {
+            kingLo ^= moveLo;
+            kingHi ^= moveHi;
+        } else if (moved == Piece.BLACK) {
+            blackLo ^= moveLo;
+            blackHi ^= moveHi;
+        } else {
+            whiteLo ^= moveLo;
+            whiteHi ^= moveHi;
+        }
+
+        // Bring the captured pieces back to life. They all belonged to the opponent.
+        long changedLo = moveLo;
+        long changedHi = moveHi;
+        for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+            if ((captures & (1 << d)) == 0) {
+                continue;
+            }
+            int sq = Bitboards.NEIGHBOR[d][to];
+            changedLo |= Bitboards.LO[sq];
+            changedHi |= Bitboards.HI[sq];
+            if (sq == king) {
+                kingLo |= Bitboards.LO[sq];
+                kingHi |= Bitboards.HI[sq];
+                hashKey ^= Zobrist.PIECE_SQUARE[Piece.KING.ordinal()][sq];
+            } else if (player == SWEDE) {
+                blackLo |= Bitboards.LO[sq];
+                blackHi |= Bitboards.HI[sq];
+                hashKey ^= Zobrist.PIECE_SQUARE[Piece.BLACK.ordinal()][sq];
+            } else {
+                whiteLo |= Bitboards.LO[sq];
+                whiteHi |= Bitboards.HI[sq];
+                hashKey ^= Zobrist.PIECE_SQUARE[Piece.WHITE.ordinal()][sq];
             }
         }
 
-        // Slaughter the captured enemies... like pigs. Or more like remove object
-        // memory addresses... same thing.
-        // Note, it is possible for multiple pieces to be captured at once, so we have a
-        // list of them.
-        for (Coord capturedCoord : captured) {
-            if (getPieceAt(capturedCoord) == Piece.KING) {
-                kingPosition = null;
-            } // the king has been captured!
-            getPlayerCoordSet(getOpponent()).remove(capturedCoord);
-            board[capturedCoord.x][capturedCoord.y] = Piece.EMPTY;
+        if (player != FIRST_PLAYER) {
+            turnNumber -= 1;
+        }
+        turnPlayer = player;
+        hashKey ^= Zobrist.SWEDE_TO_MOVE;
+        refreshMobility(changedLo, changedHi);
+        winner = (int) (undo >>> 32);
+    }
+
+    // Moves the piece on square "from" to square "to", which must be a legal move,
+    // processes captures and returns the undo record.
+    private long makeMove(int from, int to) {
+        long undo = ((long) winner << 32) | ((long) turnPlayer << UNDO_TURN_SHIFT)
+                | ((long) ((kingLo | kingHi) == 0 ? NO_KING : Bitboards.lowest(kingLo, kingHi)) << UNDO_KING_SHIFT)
+                | (to << UNDO_TO_SHIFT) | from;
+
+        // Process move...
+        long moveLo = Bitboards.LO[from] | Bitboards.LO[to];
+        long moveHi = Bitboards.HI[from] | Bitboards.HI[to];
+        Piece moved;
+        if (Bitboards.has(kingLo, kingHi, from)) {
+            kingLo ^= moveLo;
+            kingHi ^= moveHi;
+            moved = Piece.KING;
+        } else if (turnPlayer == MUSCOVITE) {
+            blackLo ^= moveLo;
+            blackHi ^= moveHi;
+            moved = Piece.BLACK;
+        } else {
+            whiteLo ^= moveLo;
+            whiteHi ^= moveHi;
+            moved = Piece.WHITE;
         }
+        undo |= (long) moved.ordinal() << UNDO_PIECE_SHIFT;
+        hashKey ^= Zobrist.PIECE_SQUARE[moved.ordinal()][from] ^ Zobrist.PIECE_SQUARE[moved.ordinal()][to];
+
+        // Now check if a capture occurred. The pieces have moved already, so the
+        // capture rules see the position as it is now.
+        int captures = captureFlags(to, playerLo(turnPlayer), playerHi(turnPlayer), blackLo, blackHi);
+        long capturedLo = 0;
+        long capturedHi = 0;
+        for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+            if ((captures & (1 << d)) != 0) {
+                int enemy = Bitboards.NEIGHBOR[d][to];
+                capturedLo |= Bitboards.LO[enemy];
+                capturedHi |= Bitboards.HI[enemy];
+                hashKey ^= Zobrist.PIECE_SQUARE[getPieceAt(Bitboards.coord(enemy)).ordinal()][enemy];
+            }
+        }
+        undo |= (long) captures << UNDO_CAPTURES_SHIFT;
+
+        // Slaughter the captured enemies... like pigs. Or more like clear some bits...
+        // same thing. Note, it is possible for multiple pieces to be captured at once.
+        blackLo &= ~capturedLo;
+        blackHi &= ~capturedHi;
+        whiteLo &= ~capturedLo;
+        whiteHi &= ~capturedHi;
+        kingLo &= ~capturedLo; // the king may have been captured!
+        kingHi &= ~capturedHi;
+        refreshMobility(moveLo | capturedLo, moveHi | capturedHi);
 
         // Update internal variables, winner, turn player, and turn number.
         if (turnPlayer != FIRST_PLAYER) {
             turnNumber += 1;
         }
         turnPlayer = getOpponent();
+        hashKey ^= Zobrist.SWEDE_TO_MOVE;
         updateWinner(); // Check if anybody won and update internal variables if so.
+        return undo;
+    }
+
+    // Directions (one bit each) around square "to" in which a piece of the turn player
+    // that just landed there captures. "mover" and "black" are the turn player's and the
+    // Muscovites' pieces once the move is made; the opponent's pieces are unchanged.
+    // Only a piece next to the new position can be captured. Corners and the center are
+    // hostile to everybody.
+    private int captureFlags(int to, long moverLo, long moverHi, long afterBlackLo, long afterBlackHi) {
+        long hostileLo = moverLo | Bitboards.RESTRICTED_LO;
+        long hostileHi = moverHi | Bitboards.RESTRICTED_HI;
+        long opponentLo = playerLo(getOpponent());
+        long opponentHi = playerHi(getOpponent());
+        int captures = 0;
+        for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+            int enemy = Bitboards.NEIGHBOR[d][to];
+            if (enemy == -1 || !Bitboards.has(opponentLo, opponentHi, enemy)) {
+                continue;
+            }
+            boolean canCapture;
+
+            // If the opponent is a king, we need to check if its at the center or the
+            // neighbors of center. If it is, then it can only be captured on all 4 sides.
+            if (Bitboards.has(kingLo, kingHi, enemy)
+                    && Bitboards.has(Bitboards.CENTER_AREA_LO, Bitboards.CENTER_AREA_HI, enemy)) {
+                canCapture = (Bitboards.NEIGHBORS_LO[enemy] & ~(afterBlackLo | Bitboards.CENTER_LO)) == 0
+                        && (Bitboards.NEIGHBORS_HI[enemy] & ~(afterBlackHi | Bitboards.CENTER_HI)) == 0;
+            } else { // Otherwise, check for the normal, sandwich-based capture rule.
+                int sandwich = Bitboards.NEIGHBOR[d][enemy];
+                canCapture = sandwich != -1 && Bitboards.has(hostileLo, hostileHi, sandwich);
+            }
+            if (canCapture) {
+                captures |= 1 << d;
+            }
+        }
+        return captures;
+    }
+
+    /**
+     * Whether a legal packed move for the turn player captures at least one piece.
+     * The capture rules are applied to the position as it would be after the move,
+     * without making it, so this is cheap enough for move ordering.
+     */
+    public boolean isCapture(int move) {
+        int from = TablutMove.from(move);
+        int to = TablutMove.to(move);
+        long moveLo = Bitboards.LO[from] | Bitboards.LO[to];
+        long moveHi = Bitboards.HI[from] | Bitboards.HI[to];
+        long afterBlackLo = (turnPlayer == MUSCOVITE) ? blackLo ^ moveLo : blackLo;
+        long afterBlackHi = (turnPlayer == MUSCOVITE) ? blackHi ^ moveHi : blackHi;
+        return captureFlags(to, playerLo(turnPlayer) ^ moveLo, playerHi(turnPlayer) ^ moveHi,
+                afterBlackLo, afterBlackHi) != 0;
+    }
+
+    /**
+     * Whether a legal packed move takes the king to a corner, i.e. wins the game.
+     */
+    public boolean isKingToCorner(int move) {
+        return Bitboards.has(kingLo, kingHi, TablutMove.from(move))
+                && Bitboards.has(Bitboards.CORNERS_LO, Bitboards.CORNERS_HI, TablutMove.to(move));
     }
 
     // Determines if a player has won by updating internal variable.
@@ -202,14 +459,15 @@ public class TablutBoardState extends BoardState {
         // Check if the king was captured -- MUSCOVITES WIN!
         // Also checking if the swedes even have any legal moves at all. If not, they
         // lose.
-        if (kingPosition == null || !playerHasALegalMove(SWEDE)) {
+        if ((kingLo | kingHi) == 0 || !playerHasALegalMove(SWEDE)) {
             winner = MUSCOVITE;
         }
 
         // Check if king is at corner -- SWEDES WIN!
         // Also checking if the muscovites even have any legal moves at all. If not,
         // they lose.
-        else if (Coordinates.isCorner(kingPosition) || !playerHasALegalMove(MUSCOVITE)) {
+        else if (((kingLo & Bitboards.CORNERS_LO) | (kingHi & Bitboards.CORNERS_HI)) != 0
+                || !playerHasALegalMove(MUSCOVITE)) {
             winner = SWEDE;
         }
 
@@ -224,34 +482,223 @@ public class TablutBoardState extends BoardState {
      * desirable to select a subset of moves from specific positions.
      */
     public ArrayList<TablutMove> getAllLegalMoves() {
-        ArrayList<TablutMove> allMoves = new ArrayList<>();
-        for (Coord pos : getPlayerCoordSet()) {
-            allMoves.addAll(getLegalMovesForPosition(pos));
+        MoveBuffer buffer = new MoveBuffer();
+        getAllLegalMoves(buffer);
+        return boxMoves(buffer);
+    }
+
+    /**
+     * Fills the buffer with all legal moves for the player, in the packed int
+     * encoding of TablutMove, and returns how many there are. Nothing is
+     * allocated, which is what playouts and searches should use.
+     */
+    public int getAllLegalMoves(MoveBuffer buffer) {
+        buffer.clear();
+        long piecesLo = playerLo(turnPlayer);
+        long piecesHi = playerHi(turnPlayer);
+        while ((piecesLo | piecesHi) != 0) {
+            int from = Bitboards.lowest(piecesLo, piecesHi);
+            piecesLo &= ~Bitboards.LO[from];
+            piecesHi &= ~Bitboards.HI[from];
+            addLegalMovesFrom(from, buffer);
         }
-        return allMoves;
+        return buffer.size();
     }
 
     /**
-     * Check if there are any legal moves for the player.
+     * Fills the buffer with the tactical moves of the player to move, packed like
+     * getAllLegalMoves(MoveBuffer), and returns how many there are: the moves that
+     * capture, and the king moves to a corner or to an edge square with a clear
+     * line to a corner. This is what a quiescence search extends; only squares
+     * next to an opponent piece are tried as capture destinations, so it is much
+     * cheaper than generating every move, and nothing is allocated.
      */
-    private boolean playerHasALegalMove(int player) {
-        for (Coord c : getPlayerCoordSet(player)) {
-            for (Coord neighbor : Coordinates.getNeighbors(c)) {
-                if (coordIsEmpty(neighbor)) {
-                    if (pieceIsAllowedAt(neighbor, getPieceAt(c))) {
-                        return true;
-                    }
-                    // Need another convoluted check just in case it is the center.
-                    if (Coordinates.isCenter(neighbor)) {
-                        int xDiff = neighbor.x - c.x;
-                        int yDiff = neighbor.y - c.y;
-                        if (coordIsEmpty(Coordinates.get(neighbor.x + xDiff, neighbor.y + yDiff)))
-                            return true;
+    public int getCaptureAndEscapeMoves(MoveBuffer buffer) {
+        buffer.clear();
+        long occupiedLo = blackLo | whiteLo | kingLo;
+        long occupiedHi = blackHi | whiteHi | kingHi;
+
+        // Empty squares next to an opponent piece with a hostile square, or for the
+        // king in the center area any square, on its other side.
+        long hostileLo = playerLo(turnPlayer) | Bitboards.RESTRICTED_LO;
+        long hostileHi = playerHi(turnPlayer) | Bitboards.RESTRICTED_HI;
+        long targetLo = 0;
+        long targetHi = 0;
+        long opponentLo = playerLo(getOpponent());
+        long opponentHi = playerHi(getOpponent());
+        while ((opponentLo | opponentHi) != 0) {
+            int enemy = Bitboards.lowest(opponentLo, opponentHi);
+            opponentLo &= ~Bitboards.LO[enemy];
+            opponentHi &= ~Bitboards.HI[enemy];
+            boolean centerKing = Bitboards.has(kingLo, kingHi, enemy)
+                    && Bitboards.has(Bitboards.CENTER_AREA_LO, Bitboards.CENTER_AREA_HI, enemy);
+            for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+                int landing = Bitboards.NEIGHBOR[d][enemy];
+                int sandwich = Bitboards.NEIGHBOR[Bitboards.opposite(d)][enemy];
+                if (landing != -1 && (centerKing || (sandwich != -1 && Bitboards.has(hostileLo, hostileHi, sandwich)))) {
+                    targetLo |= Bitboards.LO[landing];
+                    targetHi |= Bitboards.HI[landing];
+                }
+            }
+        }
+        targetLo &= ~occupiedLo;
+        targetHi &= ~occupiedHi;
+
+        long piecesLo = playerLo(turnPlayer);
+        long piecesHi = playerHi(turnPlayer);
+        while ((piecesLo | piecesHi) != 0) {
+            int from = Bitboards.lowest(piecesLo, piecesHi);
+            piecesLo &= ~Bitboards.LO[from];
+            piecesHi &= ~Bitboards.HI[from];
+            addLegalMovesFrom(from, targetLo, targetHi, buffer);
+        }
+
+        // A landing square only captures if its partner is still there once the
+        // piece has moved, which isn't the case when the partner is the moving piece.
+        int count = 0;
+        for (int i = 0; i < buffer.size(); i++) {
+            if (isCapture(buffer.get(i))) {
+                buffer.set(count++, buffer.get(i));
+            }
+        }
+        buffer.truncate(count);
+
+        // King escapes: the corners and the edge squares that see one.
+        if (turnPlayer == SWEDE && (kingLo | kingHi) != 0) {
+            // the king itself doesn't block, it leaves its square
+            long escapeLo = Bitboards.CORNERS_LO;
+            long escapeHi = Bitboards.CORNERS_HI;
+            for (int corner : Bitboards.CORNER_SQUARES) {
+                for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+                    long rayLo = Bitboards.RAY_LO[d][corner];
+                    long rayHi = Bitboards.RAY_HI[d][corner];
+                    long blockLo = rayLo & occupiedLo & ~kingLo;
+                    long blockHi = rayHi & occupiedHi & ~kingHi;
+                    if ((blockLo | blockHi) != 0) {
+                        int blocker = Bitboards.isPositive(d) ? Bitboards.lowest(blockLo, blockHi)
+                                : Bitboards.highest(blockLo, blockHi);
+                        rayLo &= ~(Bitboards.RAY_LO[d][blocker] | Bitboards.LO[blocker]);
+                        rayHi &= ~(Bitboards.RAY_HI[d][blocker] | Bitboards.HI[blocker]);
                     }
+                    escapeLo |= rayLo;
+                    escapeHi |= rayHi;
                 }
             }
+            int king = Bitboards.lowest(kingLo, kingHi);
+            // captures by the king are already in the buffer
+            int captures = buffer.size();
+            addLegalMovesFrom(king, escapeLo, escapeHi, buffer);
+            count = captures;
+            for (int i = captures; i < buffer.size(); i++) {
+                if (!isCapture(buffer.get(i))) {
+                    buffer.set(count++, buffer.get(i));
+                }
+            }
+            buffer.truncate(count);
+        }
+        return buffer.size();
+    }
+
+    private static ArrayList<TablutMove> boxMoves(MoveBuffer buffer) {
+        ArrayList<TablutMove> moves = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            moves.add(TablutMove.fromPacked(buffer.get(i)));
         }
-        return false;
+        return moves;
+    }
+
+    /**
+     * Check if there are any legal moves for the player. Constant time, since the
+     * mobile pieces are tracked incrementally by refreshMobility.
+     */
+    private boolean playerHasALegalMove(int player) {
+        return ((mobileLo & playerLo(player)) | (mobileHi & playerHi(player))) != 0;
+    }
+
+    /*
+     * Recomputes which pieces can move after the occupancy of the "changed" squares
+     * changed. Only pieces on or next to those squares can have gained or lost a
+     * move, plus the pieces next to the center when the center or a square next
+     * to it changed: those pieces pass over an empty center to the opposite
+     * neighbor, so they also depend on the squares across the center.
+     */
+    private void refreshMobility(long changedLo, long changedHi) {
+        long affectedLo = changedLo;
+        long affectedHi = changedHi;
+        long lo = changedLo;
+        long hi = changedHi;
+        while ((lo | hi) != 0) {
+            int sq = Bitboards.lowest(lo, hi);
+            lo &= ~Bitboards.LO[sq];
+            hi &= ~Bitboards.HI[sq];
+            affectedLo |= Bitboards.NEIGHBORS_LO[sq];
+            affectedHi |= Bitboards.NEIGHBORS_HI[sq];
+        }
+        if (((changedLo & Bitboards.CENTER_PASS_LO) | (changedHi & Bitboards.CENTER_PASS_HI)) != 0) {
+            affectedLo |= Bitboards.NEIGHBORS_LO[Bitboards.CENTER];
+            affectedHi |= Bitboards.NEIGHBORS_HI[Bitboards.CENTER];
+        }
+        mobileLo &= ~affectedLo;
+        mobileHi &= ~affectedHi;
+
+        long occupiedLo = blackLo | whiteLo | kingLo;
+        long occupiedHi = blackHi | whiteHi | kingHi;
+        lo = affectedLo & occupiedLo;
+        hi = affectedHi & occupiedHi;
+        while ((lo | hi) != 0) {
+            int sq = Bitboards.lowest(lo, hi);
+            lo &= ~Bitboards.LO[sq];
+            hi &= ~Bitboards.HI[sq];
+            if (pieceCanMove(sq, ~occupiedLo, ~occupiedHi)) {
+                mobileLo |= Bitboards.LO[sq];
+                mobileHi |= Bitboards.HI[sq];
+            }
+        }
+    }
+
+    /*
+     * Whether the incrementally kept mobility mask matches one recomputed from
+     * scratch with the move generator, which a piece of either player is mobile
+     * for when it gives it at least one move. Only for consistency checks (see
+     * Check), it is far too slow to call during a search.
+     */
+    boolean mobilityIsConsistent() {
+        MoveBuffer moves = new MoveBuffer();
+        long expectedLo = 0;
+        long expectedHi = 0;
+        long lo = blackLo | whiteLo | kingLo;
+        long hi = blackHi | whiteHi | kingHi;
+        while ((lo | hi) != 0) {
+            int sq = Bitboards.lowest(lo, hi);
+            lo &= ~Bitboards.LO[sq];
+            hi &= ~Bitboards.HI[sq];
+            moves.clear();
+            addLegalMovesFrom(sq, moves);
+            if (moves.size() > 0) {
+                expectedLo |= Bitboards.LO[sq];
+                expectedHi |= Bitboards.HI[sq];
+            }
+        }
+        return expectedLo == mobileLo && expectedHi == mobileHi;
+    }
+
+    // Whether the piece on the square has at least one legal move.
+    private boolean pieceCanMove(int sq, long emptyLo, long emptyHi) {
+        // The king can step onto any empty neighbor.
+        if (Bitboards.has(kingLo, kingHi, sq)) {
+            return ((Bitboards.NEIGHBORS_LO[sq] & emptyLo) | (Bitboards.NEIGHBORS_HI[sq] & emptyHi)) != 0;
+        }
+
+        // Everybody else needs an empty neighbor that is not a corner or the center.
+        if (((Bitboards.NEIGHBORS_LO[sq] & emptyLo & ~Bitboards.RESTRICTED_LO)
+                | (Bitboards.NEIGHBORS_HI[sq] & emptyHi & ~Bitboards.RESTRICTED_HI)) != 0)
+            return true;
+
+        // Need another convoluted check just in case it is next to an empty center,
+        // which can be passed through to the square on the other side.
+        return Bitboards.has(Bitboards.NEIGHBORS_LO[Bitboards.CENTER], Bitboards.NEIGHBORS_HI[Bitboards.CENTER], sq)
+                && Bitboards.has(emptyLo, emptyHi, Bitboards.CENTER)
+                && Bitboards.has(emptyLo, emptyHi, 2 * Bitboards.CENTER - sq);
     }
 
     /**
@@ -261,80 +708,132 @@ public class TablutBoardState extends BoardState {
      * is.
      */
     public ArrayList<TablutMove> getLegalMovesForPosition(Coord start) {
-        ArrayList<TablutMove> legalMoves = new ArrayList<>();
+        MoveBuffer buffer = new MoveBuffer();
+        getLegalMovesForPosition(start, buffer);
+        return boxMoves(buffer);
+    }
+
+    /**
+     * Packed version of getLegalMovesForPosition. Fills the buffer and returns the
+     * number of moves.
+     */
+    public int getLegalMovesForPosition(Coord start, MoveBuffer buffer) {
+        buffer.clear();
 
         // Check that the piece being requested actually belongs to the player.
-        Piece piece = getPieceAt(start);
-        if (piecesToPlayer.get(piece) != turnPlayer) {
-            return legalMoves;
-        }
-
-        // Iterate along 4 directions.
-        List<Coord> goodCoords = new ArrayList<>();
-        goodCoords.addAll(getLegalCoordsInDirection(start, -1, 0)); // move in -x direction
-        goodCoords.addAll(getLegalCoordsInDirection(start, 0, -1)); // move in -y direction
-        goodCoords.addAll(getLegalCoordsInDirection(start, 1, 0)); // move in +x direction
-        goodCoords.addAll(getLegalCoordsInDirection(start, 0, 1)); // move in +y direction
-
-        /*
-         * Add the real moves now. We do not call isLegal here; this is because we
-         * efficiently enforce legality by only adding those that are legal. This makes
-         * for a more efficient method so people aren't slowed down by just figuring out
-         * what they can do.
-         */
-        for (Coord end : goodCoords) {
-            if (pieceIsAllowedAt(end, piece)) {// only king moves to corner or center, so need to check.
-                legalMoves.add(new TablutMove(start, end, this.turnPlayer));
-            }
+        if (turnPlayerCanMoveFrom(start)) {
+            addLegalMovesFrom(Bitboards.square(start), buffer);
         }
-        return legalMoves;
+        return buffer.size();
     }
 
-    private List<Coord> getLegalCoordsInDirection(Coord start, int x, int y) {
-        ArrayList<Coord> coords = new ArrayList<>();
-        assert (!(x != 0 && y != 0));
-        int startPos = (x != 0) ? start.x : start.y; // starting at x or y
-        int incr = (x != 0) ? x : y; // incrementing the x or y value
-        int endIdx = (incr == 1) ? BOARD_SIZE - 1 : 0; // moving in the 0 or 8 direction
+    /*
+     * Slides the piece on square "from" along all 4 directions using the ray masks:
+     * the first occupied square on a ray blocks it and everything behind it. We
+     * efficiently enforce legality here by only adding those that are legal, so
+     * people aren't slowed down by just figuring out what they can do.
+     */
+    private void addLegalMovesFrom(int from, MoveBuffer moves) {
+        addLegalMovesFrom(from, Bitboards.BOARD_LO, Bitboards.BOARD_HI, moves);
+    }
 
-        for (int i = startPos + incr; incr * i <= endIdx; i += incr) { // increasing/decreasing functionality
-            // new coord is an x coord change or a y coord change
-            Coord coord = (x != 0) ? Coordinates.get(i, start.y) : Coordinates.get(start.x, i);
-            if (coordIsEmpty(coord)) {
-                coords.add(coord);
-            } else {
-                break;
+    // Same as above, limited to the destination squares in the target mask.
+    private void addLegalMovesFrom(int from, long targetLo, long targetHi, MoveBuffer moves) {
+        long occupiedLo = blackLo | whiteLo | kingLo;
+        long occupiedHi = blackHi | whiteHi | kingHi;
+        long toLo = 0;
+        long toHi = 0;
+        for (int d = 0; d < Coordinates.NUM_DIRECTIONS; d++) {
+            long rayLo = Bitboards.RAY_LO[d][from];
+            long rayHi = Bitboards.RAY_HI[d][from];
+            long blockLo = rayLo & occupiedLo;
+            long blockHi = rayHi & occupiedHi;
+            if ((blockLo | blockHi) != 0) {
+                int blocker = Bitboards.isPositive(d) ? Bitboards.lowest(blockLo, blockHi)
+                        : Bitboards.highest(blockLo, blockHi);
+                rayLo &= ~(Bitboards.RAY_LO[d][blocker] | Bitboards.LO[blocker]);
+                rayHi &= ~(Bitboards.RAY_HI[d][blocker] | Bitboards.HI[blocker]);
             }
+            toLo |= rayLo;
+            toHi |= rayHi;
         }
-        return coords;
-    }
 
-    // Determines whether or not this coord is a valid coord we can sandwich with.
-    private boolean canCaptureWithCoord(Coord c) {
-        return Coordinates.isCorner(c) || Coordinates.isCenter(c) || piecesToPlayer.get(getPieceAt(c)) == turnPlayer;
+        // Only the king moves to corner or center, so need to check.
+        if (!Bitboards.has(kingLo, kingHi, from)) {
+            toLo &= ~Bitboards.RESTRICTED_LO;
+            toHi &= ~Bitboards.RESTRICTED_HI;
+        }
+        toLo &= targetLo;
+        toHi &= targetHi;
+        while ((toLo | toHi) != 0) {
+            int to = Bitboards.lowest(toLo, toHi);
+            toLo &= ~Bitboards.LO[to];
+            toHi &= ~Bitboards.HI[to];
+            moves.add(TablutMove.encode(from, to, turnPlayer));
+        }
     }
 
-    // Returns all of the coordinates of pieces belonging to the current player.
+    /*
+     * Returns all of the coordinates of pieces belonging to the current player.
+     * This builds a new set on every call; searches should prefer
+     * getPieceSquares, which allocates nothing.
+     */
     public HashSet<Coord> getPlayerPieceCoordinates() {
         if (turnPlayer != MUSCOVITE && turnPlayer != SWEDE) {
             return null;
         }
-        return new HashSet<Coord>(getPlayerCoordSet(turnPlayer)); // Copy the set so no funny business.
+        return getPlayerCoordSet(turnPlayer);
     }
 
     public HashSet<Coord> getOpponentPieceCoordinates() {
         if (turnPlayer != MUSCOVITE && turnPlayer != SWEDE) {
             return null;
         }
-        return new HashSet<Coord>(getPlayerCoordSet(getOpponent())); // Copy the set so no funny business.
+        return getPlayerCoordSet(getOpponent());
     }
 
-    private HashSet<Coord> getPlayerCoordSet() {
-        return getPlayerCoordSet(turnPlayer);
+    /**
+     * Writes the squares (x * BOARD_SIZE + y) of all pieces belonging to the player
+     * into "squares", which must have room for MAX_PIECES, and returns how many
+     * there are. The pieces are read straight off the player's bitboard, in
+     * increasing square order, without allocating anything.
+     */
+    public int getPieceSquares(int player, int[] squares) {
+        int count = 0;
+        long piecesLo = playerLo(player);
+        long piecesHi = playerHi(player);
+        while (piecesLo != 0) {
+            squares[count++] = Long.numberOfTrailingZeros(piecesLo);
+            piecesLo &= piecesLo - 1;
+        }
+        while (piecesHi != 0) {
+            squares[count++] = 64 + Long.numberOfTrailingZeros(piecesHi);
+            piecesHi &= piecesHi - 1;
+        }
+        return count;
     }
 
+    // Builds a fresh set from the player's mask, so no funny business.
     private HashSet<Coord> getPlayerCoordSet(int player) {
-        return (player == MUSCOVITE) ? muscoviteCoords : swedeCoords;
+        HashSet<Coord> coords = new HashSet<>();
+        long piecesLo = playerLo(player);
+        long piecesHi = playerHi(player);
+        while ((piecesLo | piecesHi) != 0) {
+            int sq = Bitboards.lowest(piecesLo, piecesHi);
+            piecesLo &= ~Bitboards.LO[sq];
+            piecesHi &= ~Bitboards.HI[sq];
+            coords.add(Bitboards.coord(sq));
+        }
+        return coords;
+    }
+
+    // Masks of all pieces belonging to a player. Swedes include the king.
+    private long playerLo(int player) {
+        return (player == MUSCOVITE) ? blackLo : whiteLo | kingLo;
+    }
+
+    private long playerHi(int player) {
+        return (player == MUSCOVITE) ? blackHi : whiteHi | kingHi;
     }
 
     public boolean isLegal(TablutMove move) {
@@ -343,36 +842,45 @@ public class TablutBoardState extends BoardState {
             return false;
 
         // Get useful things.
-        Coord start = move.getStartPosition();
+        Coord start = move.getStartPosition(); // this will check if the position is on the board
         Coord end = move.getEndPosition();
-        Piece piece = getPieceAt(start); // this will check if the position is on the board
+        return isLegalFast(Bitboards.square(start), Bitboards.square(end));
+    }
 
-        // Check that the piece being requested actually belongs to the player.
-        if (piecesToPlayer.get(piece) != turnPlayer)
+    /**
+     * Checks whether the player whose turn it is may move the piece on square
+     * "from" to square "to", where square = x * BOARD_SIZE + y. This is the same
+     * check as isLegal, but needs no TablutMove and runs in constant time: the
+     * path is checked with a single lookup in a precomputed between-squares mask.
+     */
+    public boolean isLegalFast(int from, int to) {
+        if (from < 0 || from >= Bitboards.SQUARES || to < 0 || to >= Bitboards.SQUARES)
             return false;
 
-        // Next, make sure move doesn't end on a piece.
-        if (!coordIsEmpty(end))
+        // Check that the piece being requested actually belongs to the player.
+        if (!Bitboards.has(playerLo(turnPlayer), playerHi(turnPlayer), from))
             return false;
 
-        // Next, make sure the move is actually a move.
-        int coordDiff = start.maxDifference(end);
-        if (coordDiff == 0)
+        // Next, make sure move doesn't end on a piece.
+        long occupiedLo = blackLo | whiteLo | kingLo;
+        long occupiedHi = blackHi | whiteHi | kingHi;
+        if (Bitboards.has(occupiedLo, occupiedHi, to))
             return false;
 
-        // Now for the actual game logic. First we make sure it is moving like a rook.
-        if (!(start.x == end.x || start.y == end.y))
+        // Now for the actual game logic. First we make sure it is moving like a rook,
+        // and actually moving (the destination is empty, so it can't be "from").
+        if (from / BOARD_SIZE != to / BOARD_SIZE && from % BOARD_SIZE != to % BOARD_SIZE)
             return false;
 
         // Now we make sure it isn't moving through any other pieces.
-        for (Coord throughCoordinate : start.getCoordsBetween(end)) {
-            if (!coordIsEmpty(throughCoordinate))
-                return false;
-        }
+        int pair = from * Bitboards.SQUARES + to;
+        if (((Bitboards.BETWEEN_LO[pair] & occupiedLo) | (Bitboards.BETWEEN_HI[pair] & occupiedHi)) != 0)
+            return false;
 
         // Make sure, if its a corner or center, that the king is the only one able to
         // go there.
-        if (!pieceIsAllowedAt(end, piece))
+        if (!Bitboards.has(kingLo, kingHi, from)
+                && Bitboards.has(Bitboards.RESTRICTED_LO, Bitboards.RESTRICTED_HI, to))
             return false;
 
         // All of the conditions have been satisfied, we have a legal move!
@@ -381,7 +889,14 @@ public class TablutBoardState extends BoardState {
 
     /* ----- Useful helper functions. ----- */
     public Piece getPieceAt(int xPosition, int yPosition) {
-        return board[xPosition][yPosition];
+        int sq = Bitboards.square(xPosition, yPosition);
+        if (Bitboards.has(blackLo, blackHi, sq))
+            return Piece.BLACK;
+        if (Bitboards.has(whiteLo, whiteHi, sq))
+            return Piece.WHITE;
+        if (Bitboards.has(kingLo, kingHi, sq))
+            return Piece.KING;
+        return Piece.EMPTY;
     }
 
     public Piece getPieceAt(Coord position) {
@@ -389,15 +904,16 @@ public class TablutBoardState extends BoardState {
     }
 
     public boolean turnPlayerCanMoveFrom(Coord position) {
-        return piecesToPlayer.get(getPieceAt(position)) == turnPlayer;
+        return Bitboards.has(playerLo(turnPlayer), playerHi(turnPlayer), Bitboards.square(position));
     }
 
     public boolean isOpponentPieceAt(Coord position) {
-        return !(coordIsEmpty(position)) && piecesToPlayer.get(getPieceAt(position)) != turnPlayer;
+        return Bitboards.has(playerLo(getOpponent()), playerHi(getOpponent()), Bitboards.square(position));
     }
 
     public boolean coordIsEmpty(Coord c) {
-        return getPieceAt(c) == Piece.EMPTY;
+        int sq = Bitboards.square(c);
+        return !Bitboards.has(blackLo | whiteLo | kingLo, blackHi | whiteHi | kingHi, sq);
     }
 
     public int getOpponent() {
@@ -405,17 +921,15 @@ public class TablutBoardState extends BoardState {
     }
 
     public int getNumberPlayerPieces(int player) {
-        return getPlayerCoordSet(player).size();
+        return Bitboards.count(playerLo(player), playerHi(player));
     }
 
     public Coord getKingPosition() {
-        return kingPosition;
-    }
-
-    // If its a king, it can move anywhere. Otherwise, make sure it isn't trying to
-    // move to the center or a corner.
-    private boolean pieceIsAllowedAt(Coord pos, Piece piece) {
-        return piece == Piece.KING || !(Coordinates.isCorner(pos) || Coordinates.isCenter(pos));
+        if ((kingLo | kingHi) == 0) {
+            return null; // the king has been captured!
+        }
+        int king = Bitboards.lowest(kingLo, kingHi);
+        return Bitboards.coord(king);
     }
 
     /* ----- Used by server. ----- */
@@ -455,10 +969,59 @@ public class TablutBoardState extends BoardState {
         return (turnNumber > MAX_TURNS) || (winner != Board.NOBODY);
     }
 
+    /**
+     * Returns a legal move for the player to move, uniformly at random, usually
+     * without generating the moves: see tryRandomMove.
+     */
     @Override
     public Move getRandomMove() {
-        ArrayList<TablutMove> moves = getAllLegalMoves();
-        return moves.get(rand.nextInt(moves.size()));
+        if (rand == null) {
+            rand = new Random(1917);
+        }
+        for (int i = 0; i < RANDOM_MOVE_TRIES; i++) {
+            int move = tryRandomMove(rand.nextInt());
+            if (move != 0) {
+                return TablutMove.fromPacked(move);
+            }
+        }
+        MoveBuffer moves = new MoveBuffer();
+        getAllLegalMoves(moves);
+        return TablutMove.fromPacked(moves.get(rand.nextInt(moves.size())));
+    }
+
+    /**
+     * Turns 32 random bits into a candidate move of the player to move and
+     * returns it packed if it is legal, or 0 if it is not. The high bits pick
+     * one of the player's pieces that can move, the low bits a direction and a
+     * distance. Every legal move is exactly one candidate, and every mobile
+     * piece has as many candidates, so retrying until a legal move comes out
+     * picks uniformly among all legal moves. Constant time; a caller should
+     * still fall back on getAllLegalMoves after a bounded number of tries.
+     */
+    public int tryRandomMove(int randomBits) {
+        long piecesLo = mobileLo & playerLo(turnPlayer);
+        long piecesHi = mobileHi & playerHi(turnPlayer);
+        int count = Long.bitCount(piecesLo) + Long.bitCount(piecesHi);
+        if (count == 0) {
+            return 0;
+        }
+        // scale the high bits down to a piece index, then skip to that piece
+        int index = (int) (((randomBits >>> CANDIDATE_BITS) * (long) count) >>> (32 - CANDIDATE_BITS));
+        for (int i = 0; i < index; i++) {
+            if (piecesLo != 0) {
+                piecesLo &= piecesLo - 1;
+            } else {
+                piecesHi &= piecesHi - 1;
+            }
+        }
+        int from = Bitboards.lowest(piecesLo, piecesHi);
+        int direction = randomBits & 3;
+        int distance = ((randomBits >>> 2) & 7) + 1;
+        int to = Bitboards.TARGET[direction][from * BOARD_SIZE + distance];
+        if (to < 0 || !isLegalFast(from, to)) {
+            return 0;
+        }
+        return TablutMove.encode(from, to, turnPlayer);
     }
 
     /*** Debugging functionality is found below. ***/
@@ -7,6 +7,16 @@ import tablut.TablutBoardState;
 
 public class TablutMove extends Move {
 
+    /*
+     * Moves can also be packed into a single int: bits 0-6 hold the start square,
+     * bits 7-13 the end square and bit 14 the player, where square = x *
+     * BOARD_SIZE + y. The engine works on packed moves internally; this class is
+     * the boxed form used by the players' API and the wire protocol.
+     */
+    private static final int TO_SHIFT = 7;
+    private static final int PLAYER_SHIFT = 14;
+    private static final int SQUARE_MASK = 0x7F;
+
     /* We need to store the following information about a move. */
     private int playerId = TablutBoardState.ILLEGAL;
     private int xStart = -1;
@@ -41,6 +51,33 @@ public class TablutMove extends Move {
         }
     }
 
+    /* Packed int moves. */
+    public static int encode(int from, int to, int playerId) {
+        return from | (to << TO_SHIFT) | (playerId << PLAYER_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int player(int move) {
+        return move >>> PLAYER_SHIFT;
+    }
+
+    public static TablutMove fromPacked(int move) {
+        int size = TablutBoardState.BOARD_SIZE;
+        return new TablutMove(from(move) / size, from(move) % size, to(move) / size, to(move) % size, player(move));
+    }
+
+    public int toPacked() {
+        int size = TablutBoardState.BOARD_SIZE;
+        return encode(xStart * size + yStart, xEnd * size + yEnd, playerId);
+    }
+
     /* Useful Getters */
     public Coord getStartPosition() {
         return Coordinates.get(this.xStart, this.yStart);
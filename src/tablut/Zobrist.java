@@ -0,0 +1,36 @@
+package tablut;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing of TablutBoardState. The hash of a position
+ * is the XOR of the key of every (piece, square) pair on the board, plus
+ * SWEDE_TO_MOVE when it is the Swedes' turn. TURN is only mixed in by
+ * TablutBoardState.drawHorizonKey, near the end of the game.
+ *
+ * The generator is seeded so that keys, and therefore hashes, are the same in
+ * every JVM; anything written to disk keyed by hash stays valid across runs.
+ */
+final class Zobrist {
+    /* Indexed by Piece ordinal (BLACK, WHITE, KING), then by square. */
+    static final long[][] PIECE_SQUARE = new long[3][Bitboards.SQUARES];
+    static final long SWEDE_TO_MOVE;
+    /* Indexed by turn number, up to the one the game is drawn at. */
+    static final long[] TURN = new long[TablutBoardState.MAX_TURNS + 2];
+
+    static {
+        Random rand = new Random(1648);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int sq = 0; sq < keys.length; sq++) {
+                keys[sq] = rand.nextLong();
+            }
+        }
+        SWEDE_TO_MOVE = rand.nextLong();
+        for (int turn = 0; turn < TURN.length; turn++) {
+            TURN[turn] = rand.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}